@@ -2,11 +2,10 @@ package datastructure.lmax;
 
 import org.openjdk.jmh.annotations.*;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Stream;
 
 @State(Scope.Benchmark)
 public class ArrayBlockingQueueState {
@@ -28,6 +27,7 @@ public class ArrayBlockingQueueState {
 
     @Setup(Level.Invocation)
     public void setUp() {
+        blockingQueue.clear();
         producerExecutor = Executors.newFixedThreadPool(numberOfProducerThreads);
         consumerExecutor = Executors.newFixedThreadPool(numberOfConsumerThreads);
         producerTasks = getProducerTasks();
@@ -40,43 +40,53 @@ public class ArrayBlockingQueueState {
         consumerExecutor.shutdownNow();
     }
 
+    /**
+     * Producers and consumers run concurrently; the invocation ends once every message was taken.
+     */
     void start() throws InterruptedException {
-        List<Future<Boolean>> futures = producerExecutor.invokeAll(producerTasks);
-        List<Future<Boolean>> futures1 = consumerExecutor.invokeAll(consumerTasks);
-        Stream.concat(futures.stream(), futures1.stream())
-                .forEach(future -> {
-                    try {
-                        future.get();
-                    } catch (Exception e) {}
-                });
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (Callable<Boolean> task : consumerTasks) {
+            futures.add(consumerExecutor.submit(task));
+        }
+        for (Callable<Boolean> task : producerTasks) {
+            futures.add(producerExecutor.submit(task));
+        }
+        for (Future<Boolean> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
     }
 
+    /**
+     * The messages are split between the producers, so the work per invocation does not depend on the thread count.
+     */
     private List<Callable<Boolean>> getProducerTasks() {
-        Callable<Boolean> producerThread = () -> {
-            AtomicInteger messageCounter = new AtomicInteger(0);
-            while (messageCounter.incrementAndGet() <= numberOfMessages) {
-                blockingQueue.put(messageCounter.get());
-            }
-            return true;
-        };
-
-        List<Callable<Boolean>> tasks = new LinkedList<>();
-        for (int i = 0; i < numberOfConsumerThreads; i++) {
-            tasks.add(producerThread);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < numberOfProducerThreads; i++) {
+            int messages = numberOfMessages / numberOfProducerThreads + (i < numberOfMessages % numberOfProducerThreads ? 1 : 0);
+            tasks.add(() -> {
+                for (int message = 1; message <= messages; message++) {
+                    blockingQueue.put(message);
+                }
+                return true;
+            });
         }
         return tasks;
     }
 
     private List<Callable<Boolean>> getConsumerTasks() {
+        AtomicInteger remaining = new AtomicInteger(numberOfMessages);
         Callable<Boolean> consumerThread = () -> {
-            Integer msg = 0;
-            while (msg < numberOfMessages) {
-                msg = blockingQueue.take();
+            while (remaining.getAndDecrement() > 0) {
+                blockingQueue.take();
             }
             return true;
         };
 
-        List<Callable<Boolean>> tasks = new LinkedList<>();
+        List<Callable<Boolean>> tasks = new ArrayList<>();
         for (int i = 0; i < numberOfConsumerThreads; i++) {
             tasks.add(consumerThread);
         }
@@ -6,14 +6,15 @@ import com.lmax.disruptor.dsl.ProducerType;
 import com.lmax.disruptor.util.DaemonThreadFactory;
 import org.openjdk.jmh.annotations.*;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @State(Scope.Benchmark)
 public class LmaxDisruptorState {
 
+    private static final int RING_BUFFER_SIZE = 1 << 16;
+
     @Param({"1000000"})
     private int numberOfMessages;
 
@@ -22,53 +23,71 @@ public class LmaxDisruptorState {
     @Param({"1"})
     private int numberOfConsumerThreads;
 
-    private AtomicInteger counter;
-    private static RingBuffer<ValueEvent> ringBuffer;
+    private Disruptor<ValueEvent> disruptor;
+    private RingBuffer<ValueEvent> ringBuffer;
     private ExecutorService executor;
     private List<Callable<Boolean>> producerTasks;
 
+    /**
+     * A fresh disruptor per invocation, since {@link Disruptor#shutdown()} is what waits for the consumers to drain it.
+     */
     @Setup(Level.Invocation)
     public void setUp() {
-        counter = new AtomicInteger();
-        LmaxDisruptor disruptor = new LmaxDisruptor();
+        disruptor = new Disruptor<>(ValueEvent.EVENT_FACTORY, RING_BUFFER_SIZE, DaemonThreadFactory.INSTANCE,
+                ProducerType.MULTI, new YieldingWaitStrategy());
+        WorkHandler<ValueEvent>[] handlers = new WorkHandler[numberOfConsumerThreads];
+        for (int i = 0; i < handlers.length; i++) {
+            handlers[i] = new CountingConsumer();
+        }
+        disruptor.handleEventsWithWorkerPool(handlers);
+        ringBuffer = disruptor.start();
         producerTasks = getProducerTasks();
         executor = Executors.newFixedThreadPool(numberOfProducerThreads);
     }
 
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        executor.shutdownNow();
+        disruptor.halt();
+    }
+
+    /**
+     * The messages are split between the producers, so the work per invocation does not depend on the thread count.
+     */
     private List<Callable<Boolean>> getProducerTasks() {
-        Callable<Boolean> producerThread = () -> {
-            AtomicInteger messageCounter = new AtomicInteger(0);
-            while (messageCounter.incrementAndGet() <= numberOfMessages) {
-                long sequenceId = ringBuffer.next();
-                ValueEvent valueEvent = ringBuffer.get(sequenceId);
-                valueEvent.setValue(counter.incrementAndGet());
-                ringBuffer.publish(sequenceId);
-            }
-            return true;
-        };
-        List<Callable<Boolean>> tasks = new LinkedList<>();
+        List<Callable<Boolean>> tasks = new ArrayList<>();
         for (int i = 0; i < numberOfProducerThreads; i++) {
-            tasks.add(producerThread);
+            int messages = numberOfMessages / numberOfProducerThreads + (i < numberOfMessages % numberOfProducerThreads ? 1 : 0);
+            tasks.add(() -> {
+                for (int message = 1; message <= messages; message++) {
+                    long sequenceId = ringBuffer.next();
+                    ringBuffer.get(sequenceId).setValue(message);
+                    ringBuffer.publish(sequenceId);
+                }
+                return true;
+            });
         }
         return tasks;
     }
 
-
+    /**
+     * Publishes from all producers concurrently and returns once the consumers have processed every message.
+     */
     public void start() throws InterruptedException {
-        List<Future<Boolean>> futures = executor.invokeAll(getProducerTasks());
-
+        for (Future<Boolean> future : executor.invokeAll(producerTasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        disruptor.shutdown();
     }
 
-    public class ValueEvent {
-        private int value;
-        public final static EventFactory EVENT_FACTORY = new IntegerEventFactory();
-
-        private static class IntegerEventFactory implements EventFactory<Integer> {
+    public static class ValueEvent {
+        public static final EventFactory<ValueEvent> EVENT_FACTORY = ValueEvent::new;
 
-            public Integer newInstance() {
-                return 0;
-            }
-        }
+        private int value;
 
         public void setValue(int v) {
             this.value = v;
@@ -79,37 +98,15 @@ public class LmaxDisruptorState {
         }
     }
 
-    public class SingleEventPrintConsumer {
+    /**
+     * Each message goes to exactly one consumer of the pool, like a {@link BlockingQueue} with competing takers.
+     */
+    private static class CountingConsumer implements WorkHandler<ValueEvent> {
+        private long sum;
 
-        public EventHandler<ValueEvent>[] getEventHandler() {
-            EventHandler<ValueEvent> eventHandler
-                    = (event, sequence, endOfBatch)
-                    -> print(event.getValue(), sequence);
-            return new EventHandler[] { eventHandler };
-        }
-
-        private void print(int id, long sequenceId) {
-            System.out.println("Id is " + id
-                    + " sequence id that was used is " + sequenceId);
-        }
-    }
-
-    public class LmaxDisruptor {
-        ThreadFactory threadFactory = DaemonThreadFactory.INSTANCE;
-
-        public LmaxDisruptor() {
-            WaitStrategy waitStrategy = new BusySpinWaitStrategy();
-            Disruptor<ValueEvent> lmaxDisruptor = new Disruptor<>(
-                    ValueEvent.EVENT_FACTORY,
-                    2 << 20,
-                    threadFactory,
-                    ProducerType.MULTI,
-                    waitStrategy);
-
-            for (int i = 0; i < numberOfConsumerThreads; i++) {
-                lmaxDisruptor.handleEventsWith(new SingleEventPrintConsumer().getEventHandler());
-            }
-            ringBuffer = lmaxDisruptor.start();
+        @Override
+        public void onEvent(ValueEvent event) {
+            sum += event.getValue();
         }
     }
 }
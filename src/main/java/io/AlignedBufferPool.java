@@ -0,0 +1,84 @@
+package io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Pool of block-aligned direct buffers in power-of-two size classes, from {@code alignment} up to {@code maxSize}
+ * rounded up to a power of two.
+ * Released buffers go to a small per-thread cache first and spill over to a shared queue per size class.
+ */
+public class AlignedBufferPool {
+
+    private final int alignment;
+    private final int minShift;
+    private final int sizeClasses;
+    private final int threadCacheSize;
+    private final Queue<ByteBuffer>[] shared;
+    private final ThreadLocal<ArrayDeque<ByteBuffer>[]> threadCaches;
+
+    @SuppressWarnings("unchecked")
+    public AlignedBufferPool(int alignment, int maxSize, int threadCacheSize) {
+        if (Integer.bitCount(alignment) != 1) {
+            throw new IllegalArgumentException("alignment must be a power of two: " + alignment);
+        }
+        this.alignment = alignment;
+        this.minShift = Integer.numberOfTrailingZeros(alignment);
+        this.sizeClasses = sizeClassOf(maxSize) + 1;
+        this.threadCacheSize = threadCacheSize;
+        this.shared = new Queue[sizeClasses];
+        for (int i = 0; i < sizeClasses; i++) {
+            shared[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.threadCaches = ThreadLocal.withInitial(() -> {
+            ArrayDeque<ByteBuffer>[] caches = new ArrayDeque[sizeClasses];
+            for (int i = 0; i < sizeClasses; i++) {
+                caches[i] = new ArrayDeque<>(threadCacheSize);
+            }
+            return caches;
+        });
+    }
+
+    public int alignment() {
+        return alignment;
+    }
+
+    public ByteBuffer acquire(int size) {
+        int sizeClass = sizeClassOf(Math.max(size, 1));
+        if (sizeClass >= sizeClasses) {
+            throw new IllegalArgumentException("Requested " + size + " bytes, pool maximum is " + (alignment << (sizeClasses - 1)));
+        }
+        ByteBuffer buffer = threadCaches.get()[sizeClass].pollLast();
+        if (buffer == null) {
+            buffer = shared[sizeClass].poll();
+        }
+        if (buffer == null) {
+            int capacity = alignment << sizeClass;
+            // alignedSlice keeps the spare bytes when the allocation happens to be aligned already
+            buffer = ByteBuffer.allocateDirect(capacity + alignment).alignedSlice(alignment).limit(capacity).slice();
+        }
+        buffer.clear().limit(size);
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int sizeClass = sizeClassOf(capacity);
+        if (!buffer.isDirect() || sizeClass >= sizeClasses || capacity != alignment << sizeClass) {
+            throw new IllegalArgumentException("Buffer was not acquired from this pool: " + buffer);
+        }
+        ArrayDeque<ByteBuffer> cache = threadCaches.get()[sizeClass];
+        if (cache.size() < threadCacheSize) {
+            cache.addLast(buffer);
+        } else {
+            shared[sizeClass].offer(buffer);
+        }
+    }
+
+    private int sizeClassOf(int size) {
+        int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return Math.max(shift - minShift, 0);
+    }
+}
@@ -0,0 +1,166 @@
+package io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Off-heap cache of fixed-size file blocks in front of a channel, typically one opened with
+ * {@code ExtendedOpenOption.DIRECT}. All slots are slices of one aligned direct allocation. The block index is split
+ * into lock-striped hash maps, and victims are chosen with CLOCK. Readers pin a slot while copying out of it, so a
+ * pinned slot is never evicted.
+ */
+public class BlockCache {
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final int capacity;
+    private final ByteBuffer slots;
+    private final AtomicLongArray slotBlocks;
+    private final AtomicIntegerArray slotLengths;
+    private final AtomicIntegerArray pins;
+    private final AtomicIntegerArray referenced;
+    private final Map<Long, Integer>[] stripes;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private int clockHand;
+
+    @SuppressWarnings("unchecked")
+    public BlockCache(FileChannel channel, int blockSize, int capacity, int stripeCount, int alignment) {
+        if (blockSize % alignment != 0 || (long) blockSize * capacity + alignment > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("blockSize must be a multiple of " + alignment + " and the cache must fit in 2GB");
+        }
+        this.channel = channel;
+        this.blockSize = blockSize;
+        this.capacity = capacity;
+        this.slots = ByteBuffer.allocateDirect(blockSize * capacity + alignment).alignedSlice(alignment);
+        this.slotBlocks = new AtomicLongArray(capacity);
+        this.slotLengths = new AtomicIntegerArray(capacity);
+        this.pins = new AtomicIntegerArray(capacity);
+        this.referenced = new AtomicIntegerArray(capacity);
+        this.stripes = new Map[stripeCount];
+        for (int i = 0; i < capacity; i++) {
+            slotBlocks.set(i, -1);
+        }
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Reads up to {@code dest.remaining()} bytes starting at {@code position}, loading missing blocks from the
+     * channel. Returns the number of bytes read, which is short only at end of file.
+     */
+    public int read(ByteBuffer dest, long position) throws IOException {
+        int total = 0;
+        while (dest.hasRemaining()) {
+            long block = position / blockSize;
+            int offset = (int) (position % blockSize);
+            int slot = pin(block);
+            try {
+                int length = Math.min(slotLengths.get(slot) - offset, dest.remaining());
+                if (length <= 0) {
+                    break;
+                }
+                dest.put(dest.position(), slots, slot * blockSize + offset, length);
+                dest.position(dest.position() + length);
+                position += length;
+                total += length;
+            } finally {
+                pins.decrementAndGet(slot);
+            }
+        }
+        return total;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    private int pin(long block) throws IOException {
+        Map<Long, Integer> stripe = stripeOf(block);
+        synchronized (stripe) {
+            Integer slot = stripe.get(block);
+            if (slot != null) {
+                pins.incrementAndGet(slot);
+                referenced.set(slot, 1);
+                hits.increment();
+                return slot;
+            }
+        }
+        misses.increment();
+        int slot = evict();
+        try {
+            int length = channel.read(slots.slice(slot * blockSize, blockSize), block * blockSize);
+            slotLengths.set(slot, Math.max(length, 0));
+        } catch (IOException e) {
+            pins.decrementAndGet(slot);
+            throw e;
+        }
+        Integer existing;
+        synchronized (stripe) {
+            existing = stripe.get(block);
+            if (existing == null) {
+                stripe.put(block, slot);
+                slotBlocks.set(slot, block);
+                referenced.set(slot, 1);
+                return slot;
+            }
+            pins.incrementAndGet(existing);
+        }
+        pins.decrementAndGet(slot);
+        return existing;
+    }
+
+    /**
+     * Returns an unindexed slot pinned for the caller to load into.
+     */
+    private int evict() {
+        evictionLock.lock();
+        try {
+            for (int scanned = 0; scanned < 3 * capacity; scanned++) {
+                int slot = clockHand;
+                clockHand = (clockHand + 1) % capacity;
+                if (pins.get(slot) > 0) {
+                    continue;
+                }
+                if (referenced.compareAndSet(slot, 1, 0)) {
+                    continue;
+                }
+                long victim = slotBlocks.get(slot);
+                if (victim < 0) {
+                    if (pins.compareAndSet(slot, 0, 1)) {
+                        return slot;
+                    }
+                    continue;
+                }
+                Map<Long, Integer> stripe = stripeOf(victim);
+                synchronized (stripe) {
+                    if (pins.compareAndSet(slot, 0, 1)) {
+                        stripe.remove(victim);
+                        slotBlocks.set(slot, -1);
+                        return slot;
+                    }
+                }
+            }
+            throw new IllegalStateException("All " + capacity + " cache slots are pinned");
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private Map<Long, Integer> stripeOf(long block) {
+        return stripes[Math.floorMod(Long.hashCode(block * 0x9E3779B97F4A7C15L), stripes.length)];
+    }
+}
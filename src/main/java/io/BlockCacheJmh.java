@@ -0,0 +1,169 @@
+package io;
+
+import com.sun.nio.file.ExtendedOpenOption;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import tool.Tag;
+import tool.profile.Gauge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Tag({ "read", "cache", "concurrency" })
+public class BlockCacheJmh {
+
+    private static final ThreadLocalRandom RANDOM = ThreadLocalRandom.current();
+    private static final int SAMPLE_COUNT = 1 << 20;
+    private static final Gauge HIT_RATIO = Gauge.named("cache.hitRatio", "%");
+
+    @Benchmark
+    @Threads(4)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int readThroughCache(CacheState state, Cursor cursor) throws IOException {
+        return state.cache.read(cursor.dest.clear(), state.nextOffset(cursor));
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int readRegularChannel(CacheState state, Cursor cursor) throws IOException {
+        return state.channel.read(cursor.dest.clear(), state.nextOffset(cursor));
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int readDirectChannel(CacheState state, Cursor cursor) throws IOException {
+        return state.directChannel.read(cursor.dest.clear(), state.nextOffset(cursor));
+    }
+
+    @State(Scope.Benchmark)
+    public static class CacheState {
+
+        @Param({ "65536" })
+        private int fileBlocks;
+        @Param({ "8192" })
+        private int cacheBlocks;
+        @Param({ "0.6", "0.9", "1.2" })
+        private double zipfSkew;
+        private int blockSize;
+        private FileChannel channel;
+        private FileChannel directChannel;
+        private BlockCache cache;
+        private int[] samples;
+        private File file;
+        private long hitsAtStart;
+        private long missesAtStart;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = File.createTempFile(BlockCacheJmh.class.getSimpleName() + "_" + RANDOM.nextInt(Integer.MAX_VALUE), "dat");
+            blockSize = (int) Files.getFileStore(file.toPath()).getBlockSize();
+            prepareFile();
+            channel = FileChannel.open(file.toPath());
+            directChannel = FileChannel.open(file.toPath(), ExtendedOpenOption.DIRECT);
+            cache = new BlockCache(directChannel, blockSize, cacheBlocks, 64, blockSize);
+            samples = zipfSamples();
+        }
+
+        @Setup(Level.Iteration)
+        public void markCounters() {
+            hitsAtStart = cache.hits();
+            missesAtStart = cache.misses();
+        }
+
+        @TearDown(Level.Iteration)
+        public void publishHitRatio() {
+            long hits = cache.hits() - hitsAtStart;
+            long misses = cache.misses() - missesAtStart;
+            if (hits + misses > 0) {
+                HIT_RATIO.set(100.0 * hits / (hits + misses));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            try {
+                channel.close();
+                directChannel.close();
+            } finally {
+                file.delete();
+            }
+        }
+
+        private long nextOffset(Cursor cursor) {
+            int block = samples[cursor.index];
+            cursor.index = (cursor.index + 1) & (SAMPLE_COUNT - 1);
+            return (long) block * blockSize;
+        }
+
+        private int[] zipfSamples() {
+            double[] cumulative = new double[fileBlocks];
+            double sum = 0;
+            for (int rank = 0; rank < fileBlocks; rank++) {
+                sum += 1 / Math.pow(rank + 1, zipfSkew);
+                cumulative[rank] = sum;
+            }
+            int[] blockOfRank = new int[fileBlocks];
+            for (int i = 0; i < fileBlocks; i++) {
+                int j = RANDOM.nextInt(i + 1);
+                blockOfRank[i] = blockOfRank[j];
+                blockOfRank[j] = i;
+            }
+            int[] sampled = new int[SAMPLE_COUNT];
+            for (int i = 0; i < SAMPLE_COUNT; i++) {
+                int rank = Arrays.binarySearch(cumulative, RANDOM.nextDouble() * sum);
+                sampled[i] = blockOfRank[Math.min(rank < 0 ? -rank - 1 : rank, fileBlocks - 1)];
+            }
+            return sampled;
+        }
+
+        private void prepareFile() throws IOException {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 20);
+            while (chunk.hasRemaining()) {
+                chunk.put((byte) RANDOM.nextInt());
+            }
+            long fileSize = (long) fileBlocks * blockSize;
+            try (FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                for (long offset = 0; offset < fileSize; offset += chunk.capacity()) {
+                    chunk.clear().limit((int) Math.min(chunk.capacity(), fileSize - offset));
+                    out.write(chunk, offset);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private ByteBuffer dest;
+        private int index;
+
+        @Setup(Level.Trial)
+        public void setUp(CacheState state) {
+            dest = ByteBuffer.allocateDirect(state.blockSize * 2).alignedSlice(state.blockSize).limit(state.blockSize).slice();
+            index = ThreadLocalRandom.current().nextInt(SAMPLE_COUNT);
+        }
+    }
+}
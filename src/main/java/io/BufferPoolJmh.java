@@ -0,0 +1,147 @@
+package io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import tool.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Tag({ "memory", "concurrency" })
+public class BufferPoolJmh {
+
+    @Benchmark
+    @Threads(4)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public static byte acquireFromPool(PoolState state) {
+        ByteBuffer buffer = state.pool.acquire(state.bufferSize);
+        buffer.put(0, (byte) 1);
+        byte value = buffer.get(state.bufferSize - 1);
+        state.pool.release(buffer);
+        return value;
+    }
+
+    /**
+     * Holds twice the per-thread cache before releasing, so half of every release spills to the shared queue and
+     * half of every acquire is served from it.
+     */
+    @Benchmark
+    @Threads(4)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public static byte acquireWorkingSet(PoolState state) {
+        ByteBuffer[] held = new ByteBuffer[2 * PoolState.THREAD_CACHE_SIZE];
+        byte value = 0;
+        for (int i = 0; i < held.length; i++) {
+            held[i] = state.pool.acquire(state.bufferSize);
+            held[i].put(0, (byte) 1);
+            value ^= held[i].get(state.bufferSize - 1);
+        }
+        for (ByteBuffer buffer : held) {
+            state.pool.release(buffer);
+        }
+        return value;
+    }
+
+    /**
+     * Producer half of a hand-off: buffers are acquired on these threads and released on the {@link #handOffRelease}
+     * threads, so the acquiring threads' caches stay empty and every acquire goes to the shared queue that the
+     * releasing threads' full caches spill into. A full hand-off queue makes the producer release the buffer itself.
+     */
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(2)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public static boolean handOffAcquire(PoolState state, HandOffState handOff) {
+        ByteBuffer buffer = state.pool.acquire(state.bufferSize);
+        buffer.put(0, (byte) 1);
+        if (handOff.queue.offer(buffer)) {
+            return true;
+        }
+        state.pool.release(buffer);
+        return false;
+    }
+
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(2)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public static boolean handOffRelease(PoolState state, HandOffState handOff) {
+        ByteBuffer buffer = handOff.queue.poll();
+        if (buffer == null) {
+            return false;
+        }
+        state.pool.release(buffer);
+        return true;
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public static ByteBuffer allocateDirect(PoolState state) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(state.bufferSize);
+        buffer.put(0, (byte) 1);
+        return buffer;
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public static ByteBuffer allocateAlignedDirect(PoolState state) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(state.bufferSize + state.pool.alignment()).alignedSlice(state.pool.alignment());
+        buffer.put(0, (byte) 1);
+        return buffer;
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public static ByteBuffer allocateHeap(PoolState state) {
+        ByteBuffer buffer = ByteBuffer.allocate(state.bufferSize);
+        buffer.put(0, (byte) 1);
+        return buffer;
+    }
+
+    @State(Scope.Benchmark)
+    public static class PoolState {
+
+        private static final int THREAD_CACHE_SIZE = 4;
+
+        @Param({ "4096", "65536", "1048576" })
+        private int bufferSize;
+        private AlignedBufferPool pool;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            long alignment = Files.getFileStore(new File(System.getProperty("java.io.tmpdir")).toPath()).getBlockSize();
+            pool = new AlignedBufferPool((int) alignment, bufferSize, THREAD_CACHE_SIZE);
+        }
+    }
+
+    @State(Scope.Group)
+    public static class HandOffState {
+
+        private final ArrayBlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<>(64);
+    }
+}
@@ -0,0 +1,158 @@
+package io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Deterministic read-only test files, generated in parallel from a seeded PRNG and kept on disk under
+ * {@code -Dcorpus.dir} (default {@code java.io.tmpdir/jmh-corpus}) so that later invocations, trials and forks reuse
+ * them. Every file has a sidecar checksum, and a file is re-hashed once per JVM before it is handed out; a missing or
+ * mismatching file is regenerated.
+ * <p>
+ * The content is produced in 4MB chunks, each from its own PRNG derived from (seed, chunk index), so
+ * the bytes do not depend on how many threads wrote them. {@code compressibility} is the fraction of every 4KB block
+ * that is zero-filled, so 0 gives incompressible data and 0.75 compresses roughly 4:1.
+ */
+public final class Corpus {
+
+    public static final long DEFAULT_SEED = 0x5EEDC0DEL;
+
+    private static final int CHUNK_SIZE = 4 << 20;
+    private static final int BLOCK_SIZE = 4096;
+    private static final Path DIRECTORY = Paths.get(System.getProperty("corpus.dir",
+            Paths.get(System.getProperty("java.io.tmpdir"), "jmh-corpus").toString()));
+    private static final ThreadLocal<ByteBuffer> CHUNKS = ThreadLocal.withInitial(
+            () -> ByteBuffer.allocateDirect(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+    private static final Set<Path> VERIFIED = new HashSet<>();
+
+    private Corpus() {
+    }
+
+    public static Path file(long size) throws IOException {
+        return file(size, DEFAULT_SEED, 0);
+    }
+
+    public static synchronized Path file(long size, long seed, double compressibility) throws IOException {
+        if (size < 0 || compressibility < 0 || compressibility > 1) {
+            throw new IllegalArgumentException("size must be >= 0 and compressibility within [0, 1]");
+        }
+        int randomPerBlock = (int) Math.round(BLOCK_SIZE * (1 - compressibility)) & ~7;
+        String name = String.format("%d-%016x-%04d", size, seed, randomPerBlock);
+        Path file = DIRECTORY.resolve(name + ".dat");
+        Path checksumFile = DIRECTORY.resolve(name + ".xxh64");
+        if (VERIFIED.contains(file)) {
+            return file;
+        }
+        Files.createDirectories(DIRECTORY);
+        if (Files.exists(file) && Files.exists(checksumFile)) {
+            String expected = new String(Files.readAllBytes(checksumFile), StandardCharsets.US_ASCII).trim();
+            if (Long.toHexString(checksum(file, size, seed)).equals(expected)) {
+                VERIFIED.add(file);
+                return file;
+            }
+        }
+        long checksum = generate(file, size, seed, randomPerBlock);
+        Path checksumTemp = Files.createTempFile(DIRECTORY, name, ".xxh64.tmp");
+        Files.write(checksumTemp, Long.toHexString(checksum).getBytes(StandardCharsets.US_ASCII));
+        Files.move(checksumTemp, checksumFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        VERIFIED.add(file);
+        return file;
+    }
+
+    private static long generate(Path file, long size, long seed, int randomPerBlock) throws IOException {
+        Path temp = Files.createTempFile(DIRECTORY, file.getFileName().toString(), ".tmp");
+        long[] chunkHashes = new long[chunkCount(size)];
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            parallelChunks(chunkHashes.length, chunk -> {
+                ByteBuffer data = fill(chunk, size, seed, randomPerBlock);
+                long position = (long) chunk * CHUNK_SIZE;
+                while (data.hasRemaining()) {
+                    position += out.write(data, position);
+                }
+                chunkHashes[chunk] = Hash64.hash(data.flip(), seed);
+            });
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return combine(chunkHashes, seed);
+    }
+
+    private static long checksum(Path file, long size, long seed) throws IOException {
+        if (Files.size(file) != size) {
+            return ~0L;
+        }
+        long[] chunkHashes = new long[chunkCount(size)];
+        try (FileChannel in = FileChannel.open(file)) {
+            parallelChunks(chunkHashes.length, chunk -> {
+                ByteBuffer data = CHUNKS.get().clear();
+                long position = (long) chunk * CHUNK_SIZE;
+                data.limit((int) Math.min(CHUNK_SIZE, size - position));
+                while (data.hasRemaining() && in.read(data, position + data.position()) >= 0) {
+                }
+                chunkHashes[chunk] = Hash64.hash(data.flip(), seed);
+            });
+        }
+        return combine(chunkHashes, seed);
+    }
+
+    private static ByteBuffer fill(int chunk, long size, long seed, int randomPerBlock) {
+        ByteBuffer data = CHUNKS.get().clear();
+        data.limit((int) Math.min(CHUNK_SIZE, size - (long) chunk * CHUNK_SIZE));
+        SplittableRandom random = new SplittableRandom(seed ^ (chunk * 0x9E3779B97F4A7C15L));
+        for (int block = 0; block < data.limit(); block += BLOCK_SIZE) {
+            int blockEnd = Math.min(block + BLOCK_SIZE, data.limit());
+            int randomEnd = Math.min(block + randomPerBlock, blockEnd);
+            int i = block;
+            for (; i + Long.BYTES <= randomEnd; i += Long.BYTES) {
+                data.putLong(i, random.nextLong());
+            }
+            for (; i < blockEnd; i++) {
+                data.put(i, (byte) 0);
+            }
+        }
+        return data;
+    }
+
+    private static long combine(long[] chunkHashes, long seed) {
+        ByteBuffer hashes = ByteBuffer.allocate(chunkHashes.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        hashes.asLongBuffer().put(chunkHashes);
+        return Hash64.hash(hashes, seed);
+    }
+
+    private static int chunkCount(long size) {
+        return Math.toIntExact((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+
+    private static void parallelChunks(int chunkCount, ChunkTask task) throws IOException {
+        try {
+            IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+                try {
+                    task.run(chunk);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface ChunkTask {
+        void run(int chunk) throws IOException;
+    }
+}
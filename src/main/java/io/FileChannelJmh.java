@@ -2,6 +2,7 @@ package io;
 
 import com.sun.nio.file.ExtendedOpenOption;
 
+import org.openjdk.jmh.annotations.AuxCounters;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Level;
@@ -12,11 +13,8 @@ import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
-import org.openjdk.jmh.runner.Runner;
-import org.openjdk.jmh.runner.RunnerException;
-import org.openjdk.jmh.runner.options.Options;
-import org.openjdk.jmh.runner.options.OptionsBuilder;
-import org.openjdk.jmh.runner.options.WarmupMode;
+
+import tool.Tag;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -26,23 +24,19 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.FileStore;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
 
+@Tag({ "read", "write" })
 public class FileChannelJmh {
 
     private static final ThreadLocalRandom RANDOM = ThreadLocalRandom.current();
 
-    public static void main(String... args) throws RunnerException {
-        Options opt = new OptionsBuilder()
-                .include(FileChannelJmh.class.getSimpleName())
-                .forks(1)
-                .warmupMode(WarmupMode.BULK)
-                .warmupIterations(2)
-                .build();
-        new Runner(opt).run();
-    }
-
     @Benchmark
     @OutputTimeUnit(TimeUnit.MICROSECONDS)
     @BenchmarkMode(Mode.SampleTime)
@@ -50,18 +44,96 @@ public class FileChannelJmh {
         return state.directChannel.read(state.directDestination);
     }
 
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    public static int readFileWithRegularChannel(ReadState state, DestinationState destination) throws IOException {
+        return state.channel.read(destination.dest);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    public static int readFileWithRandomChannel(ReadState state, DestinationState destination) throws IOException {
+        return state.channelFromRandomAccess.read(destination.dest);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long scatterRead(VectoredState state) throws IOException {
+        state.clearParts();
+        return state.readChannel.position(0).read(state.parts);
+    }
+
     @Benchmark
     @OutputTimeUnit(TimeUnit.MICROSECONDS)
     @BenchmarkMode(Mode.SampleTime)
-    public static int readFileWithRegularChannel(ReadState state) throws IOException {
-        return state.channel.read(state.dest);
+    public static int readThenCopy(VectoredState state) throws IOException {
+        state.staging.clear();
+        int read = state.readChannel.read(state.staging, 0);
+        int position = 0;
+        for (ByteBuffer part : state.parts) {
+            part.clear().put(0, state.staging, position, part.capacity());
+            position += part.capacity();
+        }
+        return read;
     }
 
     @Benchmark
     @OutputTimeUnit(TimeUnit.MICROSECONDS)
     @BenchmarkMode(Mode.SampleTime)
-    public static int readFileWithRandomChannel(ReadState state) throws IOException {
-        return state.channelFromRandomAccess.read(state.dest);
+    public static long gatherWrite(VectoredState state) throws IOException {
+        state.clearParts();
+        return state.writeChannel.position(0).write(state.parts);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int copyThenWrite(VectoredState state) throws IOException {
+        state.staging.clear();
+        for (ByteBuffer part : state.parts) {
+            state.staging.put(part.clear());
+        }
+        state.staging.flip();
+        return state.writeChannel.write(state.staging, 0);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public static int readWithoutVerify(VerifyState state, ThroughputCounter counter) throws IOException {
+        return counter.add(state.readNextBlock());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public static int readAndVerifyCrc32c(VerifyState state, ThroughputCounter counter) throws IOException {
+        int block = state.readNextBlock();
+        state.verify(state.crc32c, state.expectedCrc32c[block]);
+        return counter.add(block);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public static int readAndVerifyCrc32(VerifyState state, ThroughputCounter counter) throws IOException {
+        int block = state.readNextBlock();
+        state.verify(state.crc32, state.expectedCrc32[block]);
+        return counter.add(block);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public static int readAndVerifyHash64(VerifyState state, ThroughputCounter counter) throws IOException {
+        int block = state.readNextBlock();
+        if (Hash64.hash(state.dest, 0) != state.expectedHash64[block]) {
+            throw new IOException("Hash64 mismatch in block " + block);
+        }
+        return counter.add(block);
     }
 
     @State(Scope.Benchmark)
@@ -72,20 +144,21 @@ public class FileChannelJmh {
         private FileChannel directChannel;
         private FileChannel channel;
         private FileChannel channelFromRandomAccess;
-        private ByteBuffer dest;
         private ByteBuffer directDestination;
-        private File fileForDirectChannel;
-        private File fileForRegularChannel;
-        private File fileForRandomChannel;
+        private Path file;
+        private AlignedBufferPool pool;
+
+        @Setup(Level.Trial)
+        public void createPool() throws IOException {
+            file = Corpus.file(fileSize);
+            FileStore store = Files.getFileStore(file);
+            pool = new AlignedBufferPool((int) store.getBlockSize(), fileSize, 4);
+        }
 
         @Setup(Level.Invocation)
         public void setUp() throws IOException {
-            fileForDirectChannel = prepareFile();
-            fileForRegularChannel = prepareFile();
-            fileForRandomChannel = prepareFile();
-            channel = FileChannel.open(fileForRegularChannel.toPath());
-            channelFromRandomAccess = new RandomAccessFile(fileForRandomChannel, "r").getChannel();
-            dest = ByteBuffer.allocateDirect(fileSize);
+            channel = FileChannel.open(file);
+            channelFromRandomAccess = new RandomAccessFile(file.toFile(), "r").getChannel();
             directDestination = createDirectChannelDestination();
         }
 
@@ -96,29 +169,203 @@ public class FileChannelJmh {
                 directChannel.close();
                 channelFromRandomAccess.close();
             } finally {
-                fileForRegularChannel.delete();
-                fileForDirectChannel.delete();
-                fileForRandomChannel.delete();
+                pool.release(directDestination);
             }
         }
 
         private ByteBuffer createDirectChannelDestination() throws IOException {
-            directChannel = FileChannel.open(fileForDirectChannel.toPath(), ExtendedOpenOption.DIRECT);
-            FileStore store = Files.getFileStore(fileForDirectChannel.toPath());
-            int alignment = (int) store.getBlockSize();
-            return ByteBuffer.allocateDirect(fileSize + alignment).alignedSlice(alignment);
+            directChannel = FileChannel.open(file, ExtendedOpenOption.DIRECT);
+            return pool.acquire(fileSize);
         }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DestinationState {
+
+        private static final ThreadLocal<ByteBuffer> THREAD_CACHED = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(0));
 
-        private File prepareFile() throws IOException {
-            File datafile = File.createTempFile(FileChannelJmh.class.getSimpleName() + "_" + RANDOM.nextInt(Integer.MAX_VALUE), "dat");
-            byte[] data = new byte[fileSize];
-            for (int i = 0; i < data.length; i++) {
-                data[i] = (byte) (System.nanoTime() % 2 == 0 ? 1 : 0);
+        @Param({ "heap", "direct", "aligned", "cached" })
+        private String bufferType;
+        private ByteBuffer dest;
+        private AlignedBufferPool pool;
+
+        @Setup(Level.Invocation)
+        public void setUp(ReadState state) {
+            pool = state.pool;
+            switch (bufferType) {
+                case "heap":
+                    dest = ByteBuffer.allocate(state.fileSize);
+                    break;
+                case "direct":
+                    dest = ByteBuffer.allocateDirect(state.fileSize);
+                    break;
+                case "aligned":
+                    dest = state.pool.acquire(state.fileSize);
+                    break;
+                case "cached":
+                    dest = threadCached(state.fileSize);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown bufferType " + bufferType);
             }
-            try (FileOutputStream fos = new FileOutputStream(datafile)) {
-                fos.write(data);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            if ("aligned".equals(bufferType)) {
+                pool.release(dest);
+            }
+        }
+
+        private static ByteBuffer threadCached(int size) {
+            ByteBuffer cached = THREAD_CACHED.get();
+            if (cached.capacity() < size) {
+                cached = ByteBuffer.allocateDirect(size);
+                THREAD_CACHED.set(cached);
             }
-            return datafile;
+            return cached.clear().limit(size);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class VectoredState {
+
+        @Param({ "3", "16" })
+        private int bufferCount;
+        @Param({ "64", "4096" })
+        private int bufferSize;
+        @Param({ "heap", "direct" })
+        private String bufferType;
+        private FileChannel readChannel;
+        private FileChannel writeChannel;
+        private ByteBuffer[] parts;
+        private ByteBuffer staging;
+        private File fileForRead;
+        private File fileForWrite;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            int recordSize = bufferCount * bufferSize;
+            fileForRead = File.createTempFile(FileChannelJmh.class.getSimpleName() + "_" + RANDOM.nextInt(Integer.MAX_VALUE), "dat");
+            fileForWrite = File.createTempFile(FileChannelJmh.class.getSimpleName() + "_" + RANDOM.nextInt(Integer.MAX_VALUE), "dat");
+            byte[] data = new byte[recordSize];
+            RANDOM.nextBytes(data);
+            Files.write(fileForRead.toPath(), data);
+            readChannel = FileChannel.open(fileForRead.toPath());
+            writeChannel = FileChannel.open(fileForWrite.toPath(), StandardOpenOption.WRITE);
+            parts = new ByteBuffer[bufferCount];
+            for (int i = 0; i < bufferCount; i++) {
+                parts[i] = allocate(bufferSize);
+            }
+            staging = allocate(recordSize);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            try {
+                readChannel.close();
+                writeChannel.close();
+            } finally {
+                fileForRead.delete();
+                fileForWrite.delete();
+            }
+        }
+
+        private void clearParts() {
+            for (ByteBuffer part : parts) {
+                part.clear();
+            }
+        }
+
+        private ByteBuffer allocate(int capacity) {
+            return "direct".equals(bufferType) ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class VerifyState {
+
+        private static final int BLOCK_COUNT = 256;
+
+        @Param({ "4096", "65536", "1048576" })
+        private int blockSize;
+        @Param({ "heap", "direct" })
+        private String bufferType;
+        private FileChannel channel;
+        private ByteBuffer dest;
+        private File file;
+        private final Checksum crc32c = new CRC32C();
+        private final Checksum crc32 = new CRC32();
+        private final long[] expectedCrc32c = new long[BLOCK_COUNT];
+        private final long[] expectedCrc32 = new long[BLOCK_COUNT];
+        private final long[] expectedHash64 = new long[BLOCK_COUNT];
+        private int block;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = File.createTempFile(FileChannelJmh.class.getSimpleName() + "_" + RANDOM.nextInt(Integer.MAX_VALUE), "dat");
+            byte[] data = new byte[blockSize];
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                for (int i = 0; i < BLOCK_COUNT; i++) {
+                    RANDOM.nextBytes(data);
+                    fos.write(data);
+                    ByteBuffer written = ByteBuffer.wrap(data);
+                    expectedCrc32c[i] = checksum(crc32c, written);
+                    expectedCrc32[i] = checksum(crc32, written);
+                    expectedHash64[i] = Hash64.hash(written, 0);
+                }
+            }
+            channel = FileChannel.open(file.toPath());
+            dest = "direct".equals(bufferType) ? ByteBuffer.allocateDirect(blockSize) : ByteBuffer.allocate(blockSize);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                file.delete();
+            }
+        }
+
+        private int readNextBlock() throws IOException {
+            int current = block;
+            block = (block + 1) % BLOCK_COUNT;
+            dest.clear();
+            channel.read(dest, (long) current * blockSize);
+            dest.flip();
+            return current;
+        }
+
+        private void verify(Checksum checksum, long expected) throws IOException {
+            if (checksum(checksum, dest) != expected) {
+                throw new IOException(checksum.getClass().getSimpleName() + " mismatch");
+            }
+        }
+
+        private static long checksum(Checksum checksum, ByteBuffer data) {
+            checksum.reset();
+            checksum.update(data.duplicate());
+            return checksum.getValue();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class ThroughputCounter {
+
+        public double megabytes;
+        private int blockSize;
+
+        @Setup(Level.Iteration)
+        public void clean(VerifyState state) {
+            megabytes = 0;
+            blockSize = state.blockSize;
+        }
+
+        private int add(int block) {
+            megabytes += blockSize / (1024.0 * 1024.0);
+            return block;
         }
     }
 }
@@ -0,0 +1,173 @@
+package io;
+
+import com.sun.nio.file.ExtendedOpenOption;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import tool.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Tag({ "write", "durability" })
+public class FileChannelWriteJmh {
+
+    private static final ThreadLocalRandom RANDOM = ThreadLocalRandom.current();
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int writeBuffered(WriteState state) throws IOException {
+        return state.write(state.channel, state.src);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int writeAndForceData(WriteState state) throws IOException {
+        int written = state.write(state.channel, state.src);
+        state.channel.force(false);
+        return written;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int writeAndForceMetadata(WriteState state) throws IOException {
+        int written = state.write(state.channel, state.src);
+        state.channel.force(true);
+        return written;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int writeWithDsyncChannel(WriteState state) throws IOException {
+        return state.write(state.dsyncChannel, state.src);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int writeWithSyncChannel(WriteState state) throws IOException {
+        return state.write(state.syncChannel, state.src);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int writeWithDirectChannel(WriteState state) throws IOException {
+        return state.write(state.directChannel, state.directSource);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int writeMappedAndForce(WriteState state) {
+        int index = state.nextPosition();
+        state.src.clear();
+        state.mapped.put(index, state.src, 0, state.writeSize);
+        state.mapped.force(index, state.writeSize);
+        return state.writeSize;
+    }
+
+    @State(Scope.Benchmark)
+    public static class WriteState {
+
+        private static final int REGION_SIZE = 64 << 20;
+
+        @Param({ "4096", "65536", "1048576" })
+        private int writeSize;
+        private FileChannel channel;
+        private FileChannel dsyncChannel;
+        private FileChannel syncChannel;
+        private FileChannel directChannel;
+        private FileChannel mappedChannel;
+        private MappedByteBuffer mapped;
+        private ByteBuffer src;
+        private ByteBuffer directSource;
+        private File fileForRegularChannel;
+        private File fileForDsyncChannel;
+        private File fileForSyncChannel;
+        private File fileForDirectChannel;
+        private File fileForMappedChannel;
+        private int position;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            fileForRegularChannel = prepareFile();
+            fileForDsyncChannel = prepareFile();
+            fileForSyncChannel = prepareFile();
+            fileForDirectChannel = prepareFile();
+            fileForMappedChannel = prepareFile();
+            channel = FileChannel.open(fileForRegularChannel.toPath(), StandardOpenOption.WRITE);
+            dsyncChannel = FileChannel.open(fileForDsyncChannel.toPath(), StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+            syncChannel = FileChannel.open(fileForSyncChannel.toPath(), StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+            mappedChannel = FileChannel.open(fileForMappedChannel.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            mapped = mappedChannel.map(FileChannel.MapMode.READ_WRITE, 0, REGION_SIZE);
+            src = prepareSource(ByteBuffer.allocateDirect(writeSize));
+            directSource = createDirectChannelSource();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            try {
+                channel.close();
+                dsyncChannel.close();
+                syncChannel.close();
+                directChannel.close();
+                mappedChannel.close();
+            } finally {
+                fileForRegularChannel.delete();
+                fileForDsyncChannel.delete();
+                fileForSyncChannel.delete();
+                fileForDirectChannel.delete();
+                fileForMappedChannel.delete();
+            }
+        }
+
+        private int write(FileChannel target, ByteBuffer source) throws IOException {
+            source.clear();
+            return target.write(source, nextPosition());
+        }
+
+        private int nextPosition() {
+            int current = position;
+            position = (position + writeSize) % REGION_SIZE;
+            return current;
+        }
+
+        private ByteBuffer createDirectChannelSource() throws IOException {
+            directChannel = FileChannel.open(fileForDirectChannel.toPath(), StandardOpenOption.WRITE, ExtendedOpenOption.DIRECT);
+            int alignment = (int) Files.getFileStore(fileForDirectChannel.toPath()).getBlockSize();
+            return prepareSource(ByteBuffer.allocateDirect(writeSize + alignment).alignedSlice(alignment).limit(writeSize).slice());
+        }
+
+        private ByteBuffer prepareSource(ByteBuffer buffer) {
+            while (buffer.hasRemaining()) {
+                buffer.put((byte) RANDOM.nextInt());
+            }
+            return buffer.clear();
+        }
+
+        private File prepareFile() throws IOException {
+            return File.createTempFile(FileChannelWriteJmh.class.getSimpleName() + "_" + RANDOM.nextInt(Integer.MAX_VALUE), "dat");
+        }
+    }
+}
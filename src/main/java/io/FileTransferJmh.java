@@ -0,0 +1,229 @@
+package io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import tool.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Tag({ "transfer", "concurrency" })
+public class FileTransferJmh {
+
+    private static final ThreadLocalRandom RANDOM = ThreadLocalRandom.current();
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long transferToFile(SourceState source, FileTargetState target) throws IOException {
+        return transferTo(source, target.channel.position(0));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long transferFromFile(SourceState source, FileTargetState target) throws IOException {
+        long transferred = 0;
+        while (transferred < source.fileSize) {
+            transferred += target.channel.transferFrom(source.channel.position(transferred), transferred, source.fileSize - transferred);
+        }
+        return transferred;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long copyToFileWithDirectBuffer(SourceState source, FileTargetState target) throws IOException {
+        return copy(source, source.directBuffer, target.channel.position(0));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long copyToFileWithHeapBuffer(SourceState source, FileTargetState target) throws IOException {
+        return copy(source, source.heapBuffer, target.channel.position(0));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long transferToSocket(SourceState source, SocketTargetState target) throws IOException {
+        return transferTo(source, target.channel);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long copyToSocketWithDirectBuffer(SourceState source, SocketTargetState target) throws IOException {
+        return copy(source, source.directBuffer, target.channel);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long copyToSocketWithHeapBuffer(SourceState source, SocketTargetState target) throws IOException {
+        return copy(source, source.heapBuffer, target.channel);
+    }
+
+    private static long transferTo(SourceState source, WritableByteChannel target) throws IOException {
+        long transferred = 0;
+        while (transferred < source.fileSize) {
+            transferred += source.channel.transferTo(transferred, source.fileSize - transferred, target);
+        }
+        return transferred;
+    }
+
+    private static long copy(SourceState source, ByteBuffer buffer, WritableByteChannel target) throws IOException {
+        long copied = 0;
+        while (copied < source.fileSize) {
+            buffer.clear();
+            int read = source.channel.read(buffer, copied);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            copied += read;
+        }
+        return copied;
+    }
+
+    @State(Scope.Benchmark)
+    public static class SourceState {
+
+        @Param({ "4096", "1048576", "67108864", "1073741824" })
+        private long fileSize;
+        private FileChannel channel;
+        private ByteBuffer directBuffer;
+        private ByteBuffer heapBuffer;
+        private File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = Corpus.file(fileSize).toFile();
+            channel = FileChannel.open(file.toPath());
+            directBuffer = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+            heapBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            channel.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FileTargetState {
+
+        private FileChannel channel;
+        private File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = File.createTempFile(FileTransferJmh.class.getSimpleName() + "_" + RANDOM.nextInt(Integer.MAX_VALUE), "dat");
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SocketTargetState {
+
+        @Param({ "tcp", "unix" })
+        private String socketType;
+        private ServerSocketChannel server;
+        private SocketChannel channel;
+        private SocketChannel peer;
+        private Thread drainer;
+        private volatile IOException drainFailure;
+        private Path socketDir;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            if ("unix".equals(socketType)) {
+                socketDir = Files.createTempDirectory(FileTransferJmh.class.getSimpleName());
+                UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socketDir.resolve("socket"));
+                server = ServerSocketChannel.open(StandardProtocolFamily.UNIX).bind(address);
+                channel = SocketChannel.open(address);
+            } else {
+                server = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+                channel = SocketChannel.open(server.getLocalAddress());
+            }
+            peer = server.accept();
+            drainer = new Thread(this::drain, "socket-drainer");
+            drainer.setDaemon(true);
+            drainer.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException, InterruptedException {
+            try {
+                channel.close();
+                drainer.join();
+                peer.close();
+                server.close();
+                if (drainFailure != null) {
+                    throw new IOException("Draining the " + socketType + " socket failed", drainFailure);
+                }
+            } finally {
+                if (socketDir != null) {
+                    Files.deleteIfExists(socketDir.resolve("socket"));
+                    Files.deleteIfExists(socketDir);
+                }
+            }
+        }
+
+        /**
+         * Reads and discards everything the benchmark sends until tearDown closes the sending side, which shows up
+         * here as end of stream. Any failure before that is kept for tearDown to report, and the peer is closed so
+         * the sender fails instead of blocking on a full socket buffer.
+         */
+        private void drain() {
+            ByteBuffer sink = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+            try {
+                int read;
+                do {
+                    read = peer.read(sink.clear());
+                } while (read >= 0);
+            } catch (IOException e) {
+                drainFailure = e;
+                try {
+                    peer.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 64-bit non-cryptographic hash following the xxHash64 algorithm, computed over the remaining bytes of a heap or
+ * direct {@link ByteBuffer} without moving its position.
+ */
+public final class Hash64 {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private Hash64() {
+    }
+
+    public static long hash(ByteBuffer buffer, long seed) {
+        boolean littleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+        int index = buffer.position();
+        int end = buffer.limit();
+        int length = end - index;
+        long hash;
+        if (length >= 32) {
+            long v1 = seed + PRIME1 + PRIME2;
+            long v2 = seed + PRIME2;
+            long v3 = seed;
+            long v4 = seed - PRIME1;
+            for (int limit = end - 32; index <= limit; index += 32) {
+                v1 = round(v1, getLong(buffer, index, littleEndian));
+                v2 = round(v2, getLong(buffer, index + 8, littleEndian));
+                v3 = round(v3, getLong(buffer, index + 16, littleEndian));
+                v4 = round(v4, getLong(buffer, index + 24, littleEndian));
+            }
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = seed + PRIME5;
+        }
+        hash += length;
+        for (; index + 8 <= end; index += 8) {
+            hash ^= round(0, getLong(buffer, index, littleEndian));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+        if (index + 4 <= end) {
+            int lane = buffer.getInt(index);
+            hash ^= Integer.toUnsignedLong(littleEndian ? lane : Integer.reverseBytes(lane)) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+            index += 4;
+        }
+        for (; index < end; index++) {
+            hash ^= (buffer.get(index) & 0xFFL) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+        }
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long getLong(ByteBuffer buffer, int index, boolean littleEndian) {
+        long lane = buffer.getLong(index);
+        return littleEndian ? lane : Long.reverseBytes(lane);
+    }
+
+    private static long round(long accumulator, long lane) {
+        return Long.rotateLeft(accumulator + lane * PRIME2, 31) * PRIME1;
+    }
+
+    private static long merge(long hash, long accumulator) {
+        return (hash ^ round(0, accumulator)) * PRIME1 + PRIME4;
+    }
+}
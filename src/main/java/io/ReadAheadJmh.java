@@ -0,0 +1,131 @@
+package io;
+
+import com.sun.nio.file.ExtendedOpenOption;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import tool.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@Tag({ "read", "concurrency" })
+public class ReadAheadJmh {
+
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long scanWithRegularChannel(ScanState state) throws IOException {
+        return scan(state, state.channel);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long scanWithDirectChannel(ScanState state) throws IOException {
+        return scan(state, state.directChannel);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long scanWithReadAheadRegularChannel(ScanState state) throws IOException {
+        return scanWithReadAhead(state, state.channel);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long scanWithReadAheadDirectChannel(ScanState state) throws IOException {
+        return scanWithReadAhead(state, state.directChannel);
+    }
+
+    private static long scan(ScanState state, FileChannel channel) throws IOException {
+        long checksum = 0;
+        long position = 0;
+        int read;
+        do {
+            state.buffer.clear();
+            read = channel.read(state.buffer, position);
+            if (read > 0) {
+                checksum += state.process(state.buffer.flip());
+                position += read;
+            }
+        } while (read == state.bufferSize);
+        return checksum;
+    }
+
+    private static long scanWithReadAhead(ScanState state, FileChannel channel) throws IOException {
+        long checksum = 0;
+        try (ReadAheadReader reader = new ReadAheadReader(channel, state.pool, state.bufferSize, state.depth)) {
+            ByteBuffer buffer;
+            while ((buffer = reader.next()) != null) {
+                checksum += state.process(buffer);
+            }
+        }
+        return checksum;
+    }
+
+    @State(Scope.Benchmark)
+    public static class ScanState {
+
+        @Param({ "268435456" })
+        private long fileSize;
+        @Param({ "1048576" })
+        private int bufferSize;
+        @Param({ "2", "4" })
+        private int depth;
+        @Param({ "0", "20000" })
+        private long cpuTokensPerBuffer;
+        private FileChannel channel;
+        private FileChannel directChannel;
+        private AlignedBufferPool pool;
+        private ByteBuffer buffer;
+        private File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = Corpus.file(fileSize).toFile();
+            channel = FileChannel.open(file.toPath());
+            directChannel = FileChannel.open(file.toPath(), ExtendedOpenOption.DIRECT);
+            FileStore store = Files.getFileStore(file.toPath());
+            pool = new AlignedBufferPool((int) store.getBlockSize(), bufferSize, depth + 1);
+            buffer = pool.acquire(bufferSize);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            try {
+                channel.close();
+                directChannel.close();
+            } finally {
+                pool.release(buffer);
+            }
+        }
+
+        private long process(ByteBuffer data) {
+            Blackhole.consumeCPU(cpuTokensPerBuffer);
+            long sum = 0;
+            for (int i = data.position(); i + Long.BYTES <= data.limit(); i += 4096) {
+                sum += data.getLong(i);
+            }
+            return sum;
+        }
+    }
+}
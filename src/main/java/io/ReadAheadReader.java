@@ -0,0 +1,121 @@
+package io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Sequential reader that keeps {@code depth} buffers in flight: a background thread fills free buffers from the
+ * channel while the caller processes the one returned by {@link #next()}.
+ * Buffers come from an {@link AlignedBufferPool}, so a channel opened with {@code ExtendedOpenOption.DIRECT} works
+ * as long as {@code bufferSize} is a multiple of the pool alignment.
+ */
+public class ReadAheadReader implements Closeable {
+
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;
+    private final AlignedBufferPool pool;
+    private final int bufferSize;
+    private final ByteBuffer[] buffers;
+    private final BlockingQueue<ByteBuffer> free;
+    private final BlockingQueue<ByteBuffer> filled;
+    private final Thread filler;
+    private volatile IOException failure;
+    private ByteBuffer current;
+    private boolean closed;
+
+    public ReadAheadReader(FileChannel channel, AlignedBufferPool pool, int bufferSize, int depth) {
+        if (depth < 2) {
+            throw new IllegalArgumentException("depth must be at least 2: " + depth);
+        }
+        this.channel = channel;
+        this.pool = pool;
+        this.bufferSize = bufferSize;
+        this.buffers = new ByteBuffer[depth];
+        this.free = new ArrayBlockingQueue<>(depth + 1);
+        this.filled = new ArrayBlockingQueue<>(depth + 1);
+        for (int i = 0; i < depth; i++) {
+            buffers[i] = pool.acquire(bufferSize);
+            free.add(buffers[i]);
+        }
+        this.filler = new Thread(this::fill, "read-ahead-" + channel);
+        filler.setDaemon(true);
+        filler.start();
+    }
+
+    /**
+     * Returns the next filled buffer, flipped for reading, or {@code null} once the channel is exhausted.
+     * The returned buffer is handed back to the filler on the following call, so it must not be kept.
+     */
+    public ByteBuffer next() throws IOException {
+        if (current != null) {
+            free.add(current);
+            current = null;
+        }
+        ByteBuffer buffer;
+        try {
+            buffer = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for read-ahead", e);
+        }
+        if (buffer == END) {
+            filled.add(END);
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }
+        current = buffer;
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        free.add(END);
+        try {
+            filler.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while stopping read-ahead", e);
+        }
+        for (ByteBuffer buffer : buffers) {
+            pool.release(buffer);
+        }
+    }
+
+    private void fill() {
+        long position = 0;
+        try {
+            while (true) {
+                ByteBuffer buffer = free.take();
+                if (buffer == END) {
+                    return;
+                }
+                buffer.clear().limit(bufferSize);
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                position += read;
+                filled.add(buffer.flip());
+                if (read < bufferSize) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        filled.add(END);
+    }
+}
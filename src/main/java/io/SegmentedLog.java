@@ -0,0 +1,174 @@
+package io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only log of length-prefixed records in memory-mapped segment files of {@code segmentSize} bytes.
+ * A single writer appends; any number of {@link Tailer}s follow it from other threads. A record's length is
+ * published with release semantics after its payload, so a tailer that sees the length also sees the payload.
+ * Only the newest {@code retainedSegments} segment files are kept, and a tailer that falls further behind fails
+ * with {@link java.nio.file.NoSuchFileException}.
+ */
+public class SegmentedLog implements Closeable {
+
+    private static final int HEADER = Integer.BYTES;
+    private static final int ALIGNMENT = Long.BYTES;
+    private static final int ROLL_MARKER = -1;
+    private static final VarHandle LENGTH = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int retainedSegments;
+    private volatile long firstSegment;
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    private int offset;
+
+    public SegmentedLog(Path directory, int segmentSize, int retainedSegments) throws IOException {
+        if (segmentSize % ALIGNMENT != 0 || segmentSize < 2 * ALIGNMENT) {
+            throw new IllegalArgumentException("segmentSize must be a multiple of " + ALIGNMENT + ": " + segmentSize);
+        }
+        if (retainedSegments < 1) {
+            throw new IllegalArgumentException("retainedSegments must be at least 1: " + retainedSegments);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.retainedSegments = retainedSegments;
+        this.segment = map(0, FileChannel.MapMode.READ_WRITE);
+    }
+
+    /**
+     * Appends the remaining bytes of {@code record} and returns the log position it was written at.
+     */
+    public long append(ByteBuffer record) throws IOException {
+        int length = record.remaining();
+        int span = align(HEADER + length);
+        if (length == 0 || span > segmentSize) {
+            throw new IllegalArgumentException("Record of " + length + " bytes does not fit a segment of " + segmentSize);
+        }
+        if (offset + span > segmentSize) {
+            roll();
+        }
+        // a tailer moves on once no header fits, so the next segment must exist before a filling record is visible
+        boolean fills = offset + span + HEADER > segmentSize;
+        MappedByteBuffer next = fills ? map(segmentIndex + 1, FileChannel.MapMode.READ_WRITE) : null;
+        segment.put(offset + HEADER, record, record.position(), length);
+        LENGTH.setRelease(segment, offset, length);
+        long position = segmentIndex * segmentSize + offset;
+        offset += span;
+        if (fills) {
+            continueIn(next);
+        }
+        return position;
+    }
+
+    /**
+     * Closes the current segment and continues in a new one, deleting segments beyond {@code retainedSegments}.
+     */
+    public void roll() throws IOException {
+        MappedByteBuffer next = map(segmentIndex + 1, FileChannel.MapMode.READ_WRITE);
+        if (offset + HEADER <= segmentSize) {
+            LENGTH.setRelease(segment, offset, ROLL_MARKER);
+        }
+        continueIn(next);
+    }
+
+    private void continueIn(MappedByteBuffer next) throws IOException {
+        segment = next;
+        segmentIndex++;
+        offset = 0;
+        long expired = segmentIndex - retainedSegments;
+        if (expired >= firstSegment) {
+            firstSegment = expired + 1;
+            Files.deleteIfExists(segmentPath(expired));
+        }
+    }
+
+    public void force() {
+        segment.force();
+    }
+
+    /**
+     * Returns a tailer positioned at the oldest retained record.
+     */
+    public Tailer tailer() throws IOException {
+        return new Tailer(firstSegment);
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    private MappedByteBuffer map(long index, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_WRITE
+                ? new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE }
+                : new StandardOpenOption[] { StandardOpenOption.READ };
+        try (FileChannel channel = FileChannel.open(segmentPath(index), options)) {
+            return channel.map(mode, 0, segmentSize);
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%020d.log", index));
+    }
+
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    public class Tailer {
+
+        private MappedByteBuffer segment;
+        private long segmentIndex;
+        private int offset;
+
+        private Tailer(long segmentIndex) throws IOException {
+            this.segmentIndex = segmentIndex;
+            this.segment = map(segmentIndex, FileChannel.MapMode.READ_ONLY);
+        }
+
+        /**
+         * Returns the next record as a read-only view, or {@code null} if the writer has not published one yet.
+         */
+        public ByteBuffer next() throws IOException {
+            while (true) {
+                if (offset + HEADER > segmentSize) {
+                    advance();
+                    continue;
+                }
+                int length = (int) LENGTH.getAcquire(segment, offset);
+                if (length == 0) {
+                    return null;
+                }
+                if (length == ROLL_MARKER) {
+                    advance();
+                    continue;
+                }
+                ByteBuffer record = segment.slice(offset + HEADER, length);
+                offset += align(HEADER + length);
+                return record;
+            }
+        }
+
+        public long position() {
+            return segmentIndex * segmentSize + offset;
+        }
+
+        private void advance() throws IOException {
+            segment = map(segmentIndex + 1, FileChannel.MapMode.READ_ONLY);
+            segmentIndex++;
+            offset = 0;
+        }
+    }
+}
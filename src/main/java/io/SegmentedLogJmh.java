@@ -0,0 +1,132 @@
+package io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import tool.Tag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Tag({ "write", "mmap", "concurrency" })
+public class SegmentedLogJmh {
+
+    private static final ThreadLocalRandom RANDOM = ThreadLocalRandom.current();
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    public static long append(LogState state) throws IOException {
+        return state.log.append(state.record.clear());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static void roll(LogState state) throws IOException {
+        state.log.roll();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long appendAndAwaitTailer(LogState state, TailState tail) throws IOException {
+        long position = state.log.append(state.record.clear());
+        long appended = ++tail.appended;
+        while (tail.tailed < appended) {
+            if (tail.failure != null) {
+                throw new IOException("The tailer stopped after " + tail.tailed + " records", tail.failure);
+            }
+            Thread.onSpinWait();
+        }
+        return position;
+    }
+
+    @State(Scope.Benchmark)
+    public static class LogState {
+
+        @Param({ "64", "1024" })
+        private int recordSize;
+        @Param({ "67108864" })
+        private int segmentSize;
+        private SegmentedLog log;
+        private ByteBuffer record;
+        private Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory(SegmentedLogJmh.class.getSimpleName() + "_" + RANDOM.nextInt(Integer.MAX_VALUE));
+            log = new SegmentedLog(directory, segmentSize, 4);
+            byte[] data = new byte[recordSize];
+            RANDOM.nextBytes(data);
+            record = ByteBuffer.allocateDirect(recordSize).put(data);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            try {
+                log.close();
+            } finally {
+                try (Stream<Path> segments = Files.list(directory)) {
+                    for (Path segment : (Iterable<Path>) segments::iterator) {
+                        Files.delete(segment);
+                    }
+                }
+                Files.delete(directory);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class TailState {
+
+        private Thread tailerThread;
+        private volatile boolean running;
+        private volatile long tailed;
+        private volatile IOException failure;
+        private long appended;
+
+        @Setup(Level.Trial)
+        public void startTailer(LogState state) throws IOException {
+            SegmentedLog.Tailer tailer = state.log.tailer();
+            running = true;
+            tailerThread = new Thread(() -> follow(tailer), "log-tailer");
+            tailerThread.setDaemon(true);
+            tailerThread.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void stopTailer() throws InterruptedException {
+            running = false;
+            tailerThread.join();
+        }
+
+        private void follow(SegmentedLog.Tailer tailer) {
+            try {
+                while (running) {
+                    if (tailer.next() != null) {
+                        tailed++;
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                }
+            } catch (IOException e) {
+                // the benchmark thread is spinning on tailed and would never see an exception thrown here
+                failure = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import tool.Tag;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code InputStream} baselines for {@link FileChannelJmh}: same file sizes and the same {@link Corpus} file, reopened
+ * before every invocation exactly like {@code FileChannelJmh.ReadState}.
+ */
+@Tag({ "read" })
+public class StreamReadJmh {
+
+    private static final int BUFFERED_READ_SIZE = 256;
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int readFileInputStream(StreamState state) throws IOException {
+        return state.fileInputStream.read(state.dest);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int readBufferedInputStream(StreamState state, BufferedState buffered) throws IOException {
+        int total = 0;
+        int read;
+        while (total < state.fileSize
+                && (read = buffered.stream.read(state.dest, total, Math.min(BUFFERED_READ_SIZE, state.fileSize - total))) > 0) {
+            total += read;
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int readFilesNewInputStream(StreamState state) throws IOException {
+        return state.filesInputStream.read(state.dest);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int readAllBytes(StreamState state) throws IOException {
+        return Files.readAllBytes(state.file).length;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int readFullyRandomAccessFile(StreamState state) throws IOException {
+        state.randomAccessFile.readFully(state.dest);
+        return state.dest.length;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long transferTo(StreamState state) throws IOException {
+        return state.transferInputStream.transferTo(OutputStream.nullOutputStream());
+    }
+
+    @State(Scope.Benchmark)
+    public static class StreamState {
+
+        @Param({ "4096", "524288" })
+        private int fileSize;
+        private byte[] dest;
+        private Path file;
+        private FileInputStream fileInputStream;
+        private FileInputStream transferInputStream;
+        private InputStream filesInputStream;
+        private RandomAccessFile randomAccessFile;
+
+        @Setup(Level.Trial)
+        public void allocate() throws IOException {
+            dest = new byte[fileSize];
+            file = Corpus.file(fileSize);
+        }
+
+        @Setup(Level.Invocation)
+        public void setUp() throws IOException {
+            fileInputStream = new FileInputStream(file.toFile());
+            transferInputStream = new FileInputStream(file.toFile());
+            filesInputStream = Files.newInputStream(file);
+            randomAccessFile = new RandomAccessFile(file.toFile(), "r");
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            fileInputStream.close();
+            transferInputStream.close();
+            filesInputStream.close();
+            randomAccessFile.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BufferedState {
+
+        @Param({ "8192", "65536" })
+        private int bufferSize;
+        private BufferedInputStream stream;
+
+        @Setup(Level.Invocation)
+        public void setUp(StreamState state) throws IOException {
+            stream = new BufferedInputStream(new FileInputStream(state.file.toFile()), bufferSize);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            stream.close();
+        }
+    }
+}
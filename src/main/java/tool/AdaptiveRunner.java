@@ -0,0 +1,232 @@
+package tool;
+
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Runs each benchmark one fork at a time until the confidence interval of every mode/params combination is narrower
+ * than {@code target} (relative half-width at 95%), the fork limit is hit, or its share of the time budget is spent.
+ * <p>
+ * Every fork's iteration series is checked for an unfinished warmup with MSER truncation: the start that minimises
+ * the standard error of the remaining mean is taken when the dropped prefix also differs from the rest by a t-test at
+ * 1%. Those iterations are excluded, and the warmup of the following forks grows by as many iterations. The interval
+ * pools the kept iterations of all forks, widened to the one of the fork means from three forks on, so fork-to-fork
+ * variance (JIT decisions, memory layout) is not hidden by many stable iterations of a single fork.
+ */
+class AdaptiveRunner {
+
+    private static final int MIN_FORKS = 2;
+
+    private final double target;
+    private final long budgetNanos;
+    private final int maxForks;
+    private final int warmupIterations;
+    private final int iterations;
+    private final PrintStream out;
+
+    AdaptiveRunner(double target, long budgetNanos, int maxForks, int warmupIterations, int iterations, PrintStream out) {
+        this.target = target;
+        this.budgetNanos = budgetNanos;
+        this.maxForks = maxForks;
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.out = out;
+    }
+
+    /**
+     * {@code options} gives a fresh builder that includes just the given benchmark.
+     */
+    Collection<RunResult> run(Set<String> benchmarks, Function<String, ChainedOptionsBuilder> options) throws RunnerException {
+        List<RunResult> results = new ArrayList<>();
+        List<String> summary = new ArrayList<>();
+        long deadline = System.nanoTime() + budgetNanos;
+        int remaining = benchmarks.size();
+        for (String benchmark : benchmarks) {
+            long share = (deadline - System.nanoTime()) / remaining--;
+            Map<String, Series> series = run(benchmark, options, System.nanoTime() + share);
+            for (Map.Entry<String, Series> entry : series.entrySet()) {
+                results.add(entry.getValue().merged());
+                summary.add(String.format("%-90s %5d %6d %7d %8.2f%%  %s", entry.getKey(), entry.getValue().forks.size(),
+                        entry.getValue().kept(), entry.getValue().warmup, entry.getValue().halfWidth() * 100,
+                        entry.getValue().status));
+            }
+        }
+        out.printf("%n%-90s %5s %6s %7s %9s  %s%n", "Benchmark", "Forks", "Iters", "Warmup", "CI", "Status");
+        summary.forEach(out::println);
+        return results;
+    }
+
+    private Map<String, Series> run(String benchmark, Function<String, ChainedOptionsBuilder> options, long deadline)
+            throws RunnerException {
+        Map<String, Series> series = new LinkedHashMap<>();
+        int warmup = warmupIterations;
+        long slowestFork = 0;
+        for (int fork = 1; ; fork++) {
+            long start = System.nanoTime();
+            Collection<RunResult> round = new Runner(options.apply(benchmark)
+                    .forks(1)
+                    .warmupIterations(warmup)
+                    .measurementIterations(iterations)
+                    .build()).run();
+            slowestFork = Math.max(slowestFork, System.nanoTime() - start);
+            int truncated = 0;
+            for (RunResult result : round) {
+                for (BenchmarkResult forkResult : result.getBenchmarkResults()) {
+                    Series s = series.computeIfAbsent(key(result), key -> new Series());
+                    truncated = Math.max(truncated, s.add(result, forkResult, warmup));
+                }
+            }
+            double worst = 0;
+            String worstKey = "";
+            for (Map.Entry<String, Series> entry : series.entrySet()) {
+                if (!(entry.getValue().halfWidth() <= worst)) {
+                    worst = entry.getValue().halfWidth();
+                    worstKey = entry.getKey();
+                }
+            }
+            out.printf("# adaptive %s: fork %d, widest CI +-%.2f%% (%s)%n", benchmark, fork, worst * 100, worstKey);
+            String status = null;
+            if (fork >= MIN_FORKS && worst <= target) {
+                status = "converged";
+            } else if (fork >= maxForks) {
+                status = "fork limit";
+            } else if (System.nanoTime() + slowestFork > deadline) {
+                status = "budget spent";
+            }
+            if (status != null) {
+                for (Series s : series.values()) {
+                    s.status = s.halfWidth() <= target && s.forks.size() >= MIN_FORKS ? "converged" : status;
+                }
+                return series;
+            }
+            if (truncated > 0) {
+                warmup += truncated;
+                out.printf("# adaptive %s: warmup not finished, dropped %d iterations, warmup now %d%n", benchmark,
+                        truncated, warmup);
+            }
+        }
+    }
+
+    private static String key(RunResult result) {
+        Map<String, String> params = new TreeMap<>();
+        for (String key : result.getParams().getParamsKeys()) {
+            params.put(key, result.getParams().getParam(key));
+        }
+        return result.getParams().getBenchmark() + (params.isEmpty() ? "" : params.toString()) + " "
+                + result.getParams().getMode().shortLabel();
+    }
+
+    /**
+     * Index of the first steady iteration: the MSER truncation point over the first half, when the prefix it drops
+     * differs from the remainder at 1%, otherwise 0.
+     */
+    static int steadyStart(double[] scores) {
+        int n = scores.length;
+        int best = 0;
+        double bestStatistic = Double.POSITIVE_INFINITY;
+        for (int d = 0; d <= n / 2 && n - d >= 2; d++) {
+            double mean = 0;
+            for (int i = d; i < n; i++) {
+                mean += scores[i] / (n - d);
+            }
+            double squares = 0;
+            for (int i = d; i < n; i++) {
+                squares += (scores[i] - mean) * (scores[i] - mean);
+            }
+            double statistic = squares / ((double) (n - d) * (n - d));
+            if (statistic < bestStatistic) {
+                bestStatistic = statistic;
+                best = d;
+            }
+        }
+        if (best == 0) {
+            return 0;
+        }
+        Stats.Sample tail = sample(scores, best, n);
+        double prefix = sample(scores, 0, best).mean();
+        double standardError = Math.sqrt(tail.variance() * (1.0 / best + 1.0 / (n - best)));
+        double critical = Stats.studentQuantile(0.995, n - best - 1);
+        return Math.abs(prefix - tail.mean()) > critical * standardError ? best : 0;
+    }
+
+    private static Stats.Sample sample(double[] values, int from, int to) {
+        return new Stats.Sample(Arrays.copyOfRange(values, from, to));
+    }
+
+    /**
+     * The steady iterations of every fork of one benchmark/params/mode.
+     */
+    private static final class Series {
+
+        private final List<BenchmarkResult> forks = new ArrayList<>();
+        private final List<double[]> scores = new ArrayList<>();
+        private RunResult last;
+        private int warmup;
+        private String status;
+
+        /**
+         * Returns the number of iterations dropped as warmup.
+         */
+        int add(RunResult result, BenchmarkResult fork, int warmupIterations) {
+            List<IterationResult> iterations = new ArrayList<>(fork.getIterationResults());
+            double[] values = iterations.stream().mapToDouble(iteration -> iteration.getPrimaryResult().getScore()).toArray();
+            int start = steadyStart(values);
+            BenchmarkResult kept = new BenchmarkResult(fork.getParams(), iterations.subList(start, iterations.size()),
+                    fork.getMetadata());
+            for (String label : fork.getBenchmarkResults().keys()) {
+                for (Result extra : fork.getBenchmarkResults().get(label)) {
+                    kept.addBenchmarkResult(extra);
+                }
+            }
+            forks.add(kept);
+            scores.add(Arrays.copyOfRange(values, start, values.length));
+            last = result;
+            warmup = warmupIterations + start;
+            return start;
+        }
+
+        int kept() {
+            return scores.stream().mapToInt(values -> values.length).sum();
+        }
+
+        /**
+         * Relative half-width of the 95% interval of the mean, infinite until there are two iterations.
+         */
+        double halfWidth() {
+            double[] pooled = scores.stream().flatMapToDouble(Arrays::stream).toArray();
+            if (pooled.length < 2) {
+                return Double.POSITIVE_INFINITY;
+            }
+            Stats.Sample all = sample(pooled, 0, pooled.length);
+            double halfWidth = Stats.studentQuantile(0.975, pooled.length - 1) * Math.sqrt(all.variance() / pooled.length);
+            if (scores.size() >= 3) {
+                double[] means = scores.stream().filter(values -> values.length > 0)
+                        .mapToDouble(values -> Arrays.stream(values).average().orElse(Double.NaN)).toArray();
+                Stats.Sample forkMeans = sample(means, 0, means.length);
+                halfWidth = Math.max(halfWidth,
+                        Stats.studentQuantile(0.975, means.length - 1) * Math.sqrt(forkMeans.variance() / means.length));
+            }
+            return halfWidth / Math.abs(all.mean());
+        }
+
+        RunResult merged() {
+            return new RunResult(last.getParams(), forks);
+        }
+    }
+}
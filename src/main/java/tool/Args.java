@@ -0,0 +1,88 @@
+package tool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Minimal GNU-style command line: {@code --name value}, {@code --name=value} and bare {@code --flag} for the names
+ * declared as flags. Options may repeat; everything else is positional.
+ */
+class Args {
+
+    private final Map<String, List<String>> options = new LinkedHashMap<>();
+    private final List<String> positional = new ArrayList<>();
+    private final List<String> raw;
+
+    Args(String[] args, Set<String> flags, Map<String, String> aliases) {
+        raw = Arrays.asList(args);
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("-") || arg.equals("-")) {
+                positional.add(arg);
+                continue;
+            }
+            String name = aliases.getOrDefault(arg, arg);
+            String value;
+            int equals = name.indexOf('=');
+            if (equals > 0) {
+                value = name.substring(equals + 1);
+                name = name.substring(0, equals);
+            } else if (flags.contains(name)) {
+                value = "true";
+            } else if (i + 1 < args.length) {
+                value = args[++i];
+            } else {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            options.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+    }
+
+    List<String> raw() {
+        return raw;
+    }
+
+    boolean has(String name) {
+        return options.containsKey(name);
+    }
+
+    List<String> all(String name) {
+        return options.getOrDefault(name, Collections.emptyList());
+    }
+
+    String get(String name, String defaultValue) {
+        List<String> values = all(name);
+        return values.isEmpty() ? defaultValue : values.get(values.size() - 1);
+    }
+
+    Integer getInt(String name) {
+        String value = get(name, null);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " expects an integer but was " + value);
+        }
+    }
+
+    /**
+     * Fails on any option that the command does not understand, so typos are not silently ignored.
+     */
+    void requireKnown(Set<String> known) {
+        if (!positional.isEmpty()) {
+            throw new IllegalArgumentException("Unexpected argument " + positional.get(0));
+        }
+        for (String name : options.keySet()) {
+            if (!known.contains(name)) {
+                throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+    }
+}
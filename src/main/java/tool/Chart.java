@@ -0,0 +1,310 @@
+package tool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.DoubleFunction;
+
+/**
+ * Inline SVG line charts for {@link Report}, so the page needs no script or external asset. The x axis is linear,
+ * logarithmic or a list of categories at positions 0, 1, 2 ..; the y axis is linear from zero or logarithmic over the
+ * decades the data spans. A dashed series is drawn in the colour of the series added before it, which is how a
+ * baseline is overlaid on its candidate.
+ */
+final class Chart {
+
+    private static final String[] COLORS = { "#1f77b4", "#d62728", "#2ca02c", "#ff7f0e", "#9467bd", "#8c564b",
+            "#e377c2", "#17becf", "#7f7f7f", "#bcbd22" };
+    private static final int WIDTH = 760;
+    private static final int HEIGHT = 340;
+    private static final int LEFT = 80;
+    private static final int RIGHT = 250;
+    private static final int TOP = 30;
+    private static final int BOTTOM = 50;
+
+    private final String title;
+    private final String xLabel;
+    private final String yLabel;
+    private final List<Series> series = new ArrayList<>();
+    private List<String> categories;
+    private DoubleFunction<String> logTickLabel;
+    private boolean logY;
+
+    Chart(String title, String xLabel, String yLabel) {
+        this.title = title;
+        this.xLabel = xLabel;
+        this.yLabel = yLabel;
+    }
+
+    /**
+     * Logarithmic x axis with a tick at every power of ten.
+     */
+    Chart logX(DoubleFunction<String> tickLabel) {
+        this.logTickLabel = tickLabel;
+        return this;
+    }
+
+    Chart logY() {
+        this.logY = true;
+        return this;
+    }
+
+    Chart categories(List<String> categories) {
+        this.categories = categories;
+        return this;
+    }
+
+    Chart line(String name, double[] x, double[] y) {
+        series.add(new Series(name, x, y, COLORS[(int) series.stream().filter(s -> !s.dashed).count() % COLORS.length], false));
+        return this;
+    }
+
+    Chart dashed(String name, double[] x, double[] y) {
+        String color = series.isEmpty() ? COLORS[0] : series.get(series.size() - 1).color;
+        series.add(new Series(name, x, y, color, true));
+        return this;
+    }
+
+    boolean isEmpty() {
+        return series.isEmpty();
+    }
+
+    String svg() {
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = 0;
+        for (Series s : series) {
+            for (int i = 0; i < s.x.length; i++) {
+                if (Double.isFinite(s.y[i])) {
+                    minX = Math.min(minX, scaleX(s.x[i]));
+                    maxX = Math.max(maxX, scaleX(s.x[i]));
+                    maxY = Math.max(maxY, s.y[i]);
+                    if (s.y[i] > 0) {
+                        minY = Math.min(minY, s.y[i]);
+                    }
+                }
+            }
+        }
+        if (categories != null) {
+            minX = 0;
+            maxX = Math.max(categories.size() - 1, 1);
+        }
+        if (minX >= maxX) {
+            maxX = minX + 1;
+        }
+        List<Tick> yTicks = new ArrayList<>();
+        Plot plot;
+        if (logY && maxY > 0) {
+            double low = Math.floor(Math.log10(minY));
+            double high = Math.max(Math.ceil(Math.log10(maxY)), low + 1);
+            for (double decade = low; decade <= high; decade++) {
+                yTicks.add(new Tick(decade, number(Math.pow(10, decade))));
+            }
+            plot = new Plot(minX, maxX, low, high);
+        } else {
+            double step = niceStep(maxY == 0 ? 1 : maxY);
+            maxY = Math.ceil((maxY == 0 ? 1 : maxY) / step) * step;
+            for (double y = 0; y <= maxY + step / 2; y += step) {
+                yTicks.add(new Tick(y, number(y)));
+            }
+            plot = new Plot(minX, maxX, 0, maxY);
+        }
+        StringBuilder svg = new StringBuilder();
+        svg.append(String.format(Locale.ROOT, "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" height=\"%d\" "
+                + "viewBox=\"0 0 %d %d\" font-family=\"sans-serif\" font-size=\"11\">%n", WIDTH, HEIGHT, WIDTH, HEIGHT));
+        svg.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"18\" font-size=\"13\" font-weight=\"bold\">%s</text>%n",
+                LEFT, Report.escape(title)));
+        for (Tick tick : yTicks) {
+            svg.append(String.format(Locale.ROOT, "<line x1=\"%d\" x2=\"%d\" y1=\"%.1f\" y2=\"%.1f\" stroke=\"#e0e0e0\"/>"
+                    + "<text x=\"%d\" y=\"%.1f\" text-anchor=\"end\">%s</text>%n", LEFT, WIDTH - RIGHT,
+                    plot.y(tick.position), plot.y(tick.position), LEFT - 5, plot.y(tick.position) + 4, tick.label));
+        }
+        for (Tick tick : xTicks(minX, maxX)) {
+            svg.append(String.format(Locale.ROOT, "<line x1=\"%.1f\" x2=\"%.1f\" y1=\"%d\" y2=\"%d\" stroke=\"#e0e0e0\"/>"
+                    + "<text x=\"%.1f\" y=\"%d\" text-anchor=\"middle\">%s</text>%n", plot.x(tick.position),
+                    plot.x(tick.position), TOP, HEIGHT - BOTTOM, plot.x(tick.position), HEIGHT - BOTTOM + 15,
+                    Report.escape(tick.label)));
+        }
+        svg.append(String.format(Locale.ROOT, "<rect x=\"%d\" y=\"%d\" width=\"%d\" height=\"%d\" fill=\"none\" stroke=\"#999\"/>%n",
+                LEFT, TOP, WIDTH - LEFT - RIGHT, HEIGHT - TOP - BOTTOM));
+        svg.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" text-anchor=\"middle\">%s</text>%n",
+                LEFT + (WIDTH - LEFT - RIGHT) / 2, HEIGHT - 12, Report.escape(xLabel)));
+        svg.append(String.format(Locale.ROOT, "<text transform=\"translate(14 %d) rotate(-90)\" text-anchor=\"middle\">%s</text>%n",
+                TOP + (HEIGHT - TOP - BOTTOM) / 2, Report.escape(yLabel)));
+        int legend = 0;
+        for (Series s : series) {
+            StringBuilder points = new StringBuilder();
+            for (int i = 0; i < s.x.length; i++) {
+                if (Double.isFinite(scaleY(s.y[i]))) {
+                    points.append(String.format(Locale.ROOT, "%.1f,%.1f ", plot.x(scaleX(s.x[i])), plot.y(scaleY(s.y[i]))));
+                }
+            }
+            String dash = s.dashed ? " stroke-dasharray=\"5 3\"" : "";
+            svg.append(String.format(Locale.ROOT, "<polyline fill=\"none\" stroke=\"%s\" stroke-width=\"1.5\"%s points=\"%s\">"
+                    + "<title>%s</title></polyline>%n", s.color, dash, points.toString().trim(), Report.escape(s.name)));
+            if (!s.dashed && s.x.length <= 32) {
+                for (int i = 0; i < s.x.length; i++) {
+                    if (Double.isFinite(scaleY(s.y[i]))) {
+                        svg.append(String.format(Locale.ROOT, "<circle cx=\"%.1f\" cy=\"%.1f\" r=\"2.5\" fill=\"%s\">"
+                                + "<title>%s: %s</title></circle>%n", plot.x(scaleX(s.x[i])), plot.y(scaleY(s.y[i])), s.color,
+                                Report.escape(s.name), number(s.y[i])));
+                    }
+                }
+            }
+            int y = TOP + 8 + legend++ * 15;
+            svg.append(String.format(Locale.ROOT, "<line x1=\"%d\" x2=\"%d\" y1=\"%d\" y2=\"%d\" stroke=\"%s\" stroke-width=\"2\"%s/>"
+                    + "<text x=\"%d\" y=\"%d\">%s</text>%n", WIDTH - RIGHT + 10, WIDTH - RIGHT + 30, y, y, s.color, dash,
+                    WIDTH - RIGHT + 35, y + 4, Report.escape(shorten(s.name))));
+        }
+        return svg.append("</svg>").toString();
+    }
+
+    /**
+     * Horizontal bars of relative changes with their confidence intervals as whiskers, green for improvements and
+     * red for regressions; values are fractions.
+     */
+    static String changes(String title, List<String> labels, double[] change, double[] low, double[] high, List<String> verdicts) {
+        int rowHeight = 18;
+        int labelWidth = 500;
+        int plotWidth = 320;
+        int height = TOP + labels.size() * rowHeight + 30;
+        double range = 0.01;
+        for (int i = 0; i < labels.size(); i++) {
+            range = Math.max(range, Math.max(Math.abs(low[i]), Math.abs(high[i])));
+        }
+        double step = niceStep(range);
+        range = Math.ceil(range / step) * step;
+        double zero = labelWidth + plotWidth / 2.0;
+        double scale = plotWidth / 2.0 / range;
+        StringBuilder svg = new StringBuilder();
+        svg.append(String.format(Locale.ROOT, "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" height=\"%d\" "
+                + "font-family=\"sans-serif\" font-size=\"11\">%n", labelWidth + plotWidth + 20, height));
+        svg.append(String.format(Locale.ROOT, "<text x=\"0\" y=\"18\" font-size=\"13\" font-weight=\"bold\">%s</text>%n",
+                Report.escape(title)));
+        for (double tick = -range; tick <= range + step / 2; tick += step) {
+            double x = zero + tick * scale;
+            svg.append(String.format(Locale.ROOT, "<line x1=\"%.1f\" x2=\"%.1f\" y1=\"%d\" y2=\"%d\" stroke=\"%s\"/>"
+                    + "<text x=\"%.1f\" y=\"%d\" text-anchor=\"middle\">%+.0f%%</text>%n", x, x, TOP,
+                    height - 25, Math.abs(tick) < step / 2 ? "#666" : "#e0e0e0", x, height - 10, tick * 100));
+        }
+        for (int i = 0; i < labels.size(); i++) {
+            int y = TOP + i * rowHeight;
+            String color = verdicts.get(i).equals("IMPROVED") ? "#2ca02c" : verdicts.get(i).equals("REGRESSED") ? "#d62728" : "#aaa";
+            double x = Math.min(zero, zero + change[i] * scale);
+            svg.append(String.format(Locale.ROOT, "<text x=\"%d\" y=\"%d\" text-anchor=\"end\">%s</text>%n",
+                    labelWidth - 8, y + 13, Report.escape(shorten(labels.get(i), 84))));
+            svg.append(String.format(Locale.ROOT, "<rect x=\"%.1f\" y=\"%d\" width=\"%.1f\" height=\"%d\" fill=\"%s\">"
+                    + "<title>%+.2f%% [%+.2f%%, %+.2f%%]</title></rect>%n", x, y + 3, Math.abs(change[i]) * scale,
+                    rowHeight - 6, color, change[i] * 100, low[i] * 100, high[i] * 100));
+            svg.append(String.format(Locale.ROOT, "<line x1=\"%.1f\" x2=\"%.1f\" y1=\"%d\" y2=\"%d\" stroke=\"#333\"/>%n",
+                    zero + low[i] * scale, zero + high[i] * scale, y + rowHeight / 2, y + rowHeight / 2));
+        }
+        return svg.append("</svg>").toString();
+    }
+
+    private double scaleX(double x) {
+        return logTickLabel != null ? Math.log10(x) : x;
+    }
+
+    private double scaleY(double y) {
+        return logY ? Math.log10(y) : y;
+    }
+
+    private List<Tick> xTicks(double min, double max) {
+        List<Tick> ticks = new ArrayList<>();
+        if (categories != null) {
+            for (int i = 0; i < categories.size(); i++) {
+                ticks.add(new Tick(i, categories.get(i)));
+            }
+        } else if (logTickLabel != null) {
+            for (double decade = Math.ceil(min); decade <= max; decade++) {
+                ticks.add(new Tick(decade, logTickLabel.apply(Math.pow(10, decade))));
+            }
+        } else {
+            double step = niceStep(max - min);
+            for (double x = Math.ceil(min / step) * step; x <= max + step / 2; x += step) {
+                ticks.add(new Tick(x, number(x)));
+            }
+        }
+        return ticks;
+    }
+
+    /**
+     * 1, 2 or 5 times a power of ten, giving about five intervals over {@code range}.
+     */
+    private static double niceStep(double range) {
+        double raw = range / 5;
+        double magnitude = Math.pow(10, Math.floor(Math.log10(raw)));
+        double normalized = raw / magnitude;
+        return (normalized <= 1 ? 1 : normalized <= 2 ? 2 : normalized <= 5 ? 5 : 10) * magnitude;
+    }
+
+    static String number(double value) {
+        double magnitude = Math.abs(value);
+        if (magnitude != 0 && (magnitude >= 1e6 || magnitude < 1e-3)) {
+            return String.format(Locale.ROOT, "%.3g", value);
+        }
+        return String.format(Locale.ROOT, magnitude >= 100 || value == Math.rint(value) ? "%.0f" : "%.3f", value)
+                .replaceAll("(\\.\\d*?)0+$", "$1").replaceAll("\\.$", "");
+    }
+
+    private static String shorten(String text) {
+        return shorten(text, 38);
+    }
+
+    private static String shorten(String text, int length) {
+        return text.length() <= length ? text : "…" + text.substring(text.length() - length + 1);
+    }
+
+    private static final class Series {
+
+        final String name;
+        final double[] x;
+        final double[] y;
+        final String color;
+        final boolean dashed;
+
+        Series(String name, double[] x, double[] y, String color, boolean dashed) {
+            this.name = name;
+            this.x = x;
+            this.y = y;
+            this.color = color;
+            this.dashed = dashed;
+        }
+    }
+
+    private static final class Tick {
+
+        final double position;
+        final String label;
+
+        Tick(double position, String label) {
+            this.position = position;
+            this.label = label;
+        }
+    }
+
+    private static final class Plot {
+
+        final double minX;
+        final double maxX;
+        final double minY;
+        final double maxY;
+
+        Plot(double minX, double maxX, double minY, double maxY) {
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.maxY = maxY;
+        }
+
+        double x(double x) {
+            return LEFT + (x - minX) / (maxX - minX) * (WIDTH - LEFT - RIGHT);
+        }
+
+        double y(double y) {
+            return HEIGHT - BOTTOM - (y - minY) / (maxY - minY) * (HEIGHT - TOP - BOTTOM);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package tool;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compares the primary metric of every benchmark/params/threads/configuration/mode combination present in both runs. The observations are
+ * the per-iteration scores of all forks in every mode; for {@code sample} mode each iteration contributes the median
+ * of its latency histogram, so a handful of tail samples cannot move the comparison and the sample count is the
+ * iteration count rather than the number of recorded latencies, which are not independent. A change is only reported
+ * as a regression or improvement when both Welch's t-test and Mann-Whitney agree at {@code alpha} and the relative
+ * change of the mean is at least {@code threshold}, so neither tiny-but-significant nor large-but-noisy differences
+ * fail the gate.
+ */
+class Comparison {
+
+    private static final Set<String> VOLATILE = Set.of(ResultStore.ENVIRONMENT + "load.average",
+            ResultStore.ENVIRONMENT + "cpu.frequency.mhz");
+
+    private final ResultStore.Run baseline;
+    private final ResultStore.Run candidate;
+    private final double alpha;
+    private final double threshold;
+
+    Comparison(ResultStore.Run baseline, ResultStore.Run candidate, double alpha, double threshold) {
+        this.baseline = baseline;
+        this.candidate = candidate;
+        this.alpha = alpha;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Prints one row per compared benchmark and returns the number of regressions.
+     */
+    int print(PrintStream out) throws IOException {
+        List<String> unmatched = new ArrayList<>();
+        List<Row> rows = rows(unmatched);
+        out.printf("baseline  %s %s%n", baseline.id(), baseline.label());
+        out.printf("candidate %s %s%n", candidate.id(), candidate.label());
+        for (String change : environmentChanges()) {
+            out.println("environment changed: " + change);
+        }
+        out.printf("alpha %.3f, threshold %.1f%%, %.0f%% confidence intervals%n%n", alpha, threshold * 100, (1 - alpha) * 100);
+        out.printf("%-70s %-20s %6s %7s %12s %12s %-10s %9s %21s %9s %9s %7s  %s%n", "Benchmark", "Config", "Mode",
+                "Threads", "Baseline", "Candidate", "Units", "Change", "CI", "p(Welch)", "p(MW)", "Cliff", "Verdict");
+        int regressions = 0;
+        int improvements = 0;
+        for (Row row : rows) {
+            if (row.verdict.equals("REGRESSED")) {
+                regressions++;
+            } else if (row.verdict.equals("IMPROVED")) {
+                improvements++;
+            }
+            out.printf("%-70s %-20s %6s %7d %12.6g %12.6g %-10s %+8.2f%% [%+8.2f%%, %+8.2f%%] %9.4f %9.4f %+7.3f  %s%n",
+                    row.name, row.config, row.mode, row.threads, row.baseline, row.candidate, row.unit, row.change * 100, row.low * 100,
+                    row.high * 100, row.welchP, row.mannWhitneyP, row.cliffsDelta, row.verdict);
+        }
+        out.printf("%n%d regressed, %d improved, %d not comparable%n", regressions, improvements, unmatched.size());
+        for (String key : unmatched) {
+            out.println("  not comparable: " + key);
+        }
+        return regressions;
+    }
+
+    /**
+     * Fingerprint entries that differ between the runs, ignoring the ones that drift on an unchanged machine.
+     */
+    List<String> environmentChanges() {
+        List<String> changes = new ArrayList<>();
+        Set<String> keys = new TreeSet<>(baseline.metadata().stringPropertyNames());
+        keys.addAll(candidate.metadata().stringPropertyNames());
+        for (String key : keys) {
+            if (!key.startsWith(ResultStore.ENVIRONMENT) || VOLATILE.contains(key)) {
+                continue;
+            }
+            String before = baseline.metadata().getProperty(key, Environment.UNKNOWN);
+            String after = candidate.metadata().getProperty(key, Environment.UNKNOWN);
+            if (!before.equals(after)) {
+                changes.add(key.substring(ResultStore.ENVIRONMENT.length()) + ": " + before + " -> " + after);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * One row per benchmark/params/threads/configuration/mode present in both runs with enough samples; the keys of everything else are
+     * added to {@code unmatched}.
+     */
+    List<Row> rows(List<String> unmatched) throws IOException {
+        Map<String, Map<String, Object>> before = index(baseline.results());
+        Map<String, Map<String, Object>> after = index(candidate.results());
+        Set<String> common = commonJvmArgs(after.values());
+        List<Row> rows = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> entry : after.entrySet()) {
+            Map<String, Object> old = before.get(entry.getKey());
+            if (old == null) {
+                unmatched.add(entry.getKey());
+                continue;
+            }
+            Stats.Sample a = samples(Json.object(old.get("primaryMetric")));
+            Stats.Sample b = samples(Json.object(entry.getValue().get("primaryMetric")));
+            if (a.count() < 2 || b.count() < 2) {
+                unmatched.add(entry.getKey());
+                continue;
+            }
+            rows.add(new Row(entry.getValue(), config(entry.getValue(), common), a, b));
+        }
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                unmatched.add(key);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Results by {@link #key}. A run whose results share a key, which would silently keep only the last one, is
+     * rejected.
+     */
+    static Map<String, Map<String, Object>> index(Collection<Map<String, Object>> results) {
+        Set<String> common = commonJvmArgs(results);
+        Map<String, Map<String, Object>> index = new TreeMap<>();
+        for (Map<String, Object> result : results) {
+            String key = key(result, common);
+            if (index.put(key, result) != null) {
+                throw new IllegalArgumentException("Several results of one run are " + key);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Benchmark, params, worker threads, fork configuration and mode: what a result has to match in the other run,
+     * e.g. one level of a thread sweep or one JVM configuration of a matrix run.
+     */
+    private static String key(Map<String, Object> result, Set<String> common) {
+        String config = config(result, common);
+        return name(result) + " " + threads(result) + "t " + (config.isEmpty() ? "" : "[" + config + "] ")
+                + result.get("mode");
+    }
+
+    /**
+     * The fork JVM arguments that set this result apart from the others of its run, e.g. the collector of a matrix
+     * configuration, and empty for a result with only the arguments every result shares. Shared arguments are left out,
+     * so runs that differ only in those, such as two single-collector runs, still compare with each other and report
+     * the difference as an environment change.
+     */
+    static String config(Map<String, Object> result, Set<String> common) {
+        List<String> own = jvmArgs(result);
+        own.removeAll(common);
+        return String.join(" ", own);
+    }
+
+    static Set<String> commonJvmArgs(Collection<Map<String, Object>> results) {
+        Set<String> common = null;
+        for (Map<String, Object> result : results) {
+            if (common == null) {
+                common = new LinkedHashSet<>(jvmArgs(result));
+            } else {
+                common.retainAll(jvmArgs(result));
+            }
+        }
+        return common == null ? Set.of() : common;
+    }
+
+    private static List<String> jvmArgs(Map<String, Object> result) {
+        List<String> args = new ArrayList<>();
+        Object jvmArgs = result.get("jvmArgs");
+        if (jvmArgs != null) {
+            Json.array(jvmArgs).forEach(arg -> args.add((String) arg));
+        }
+        return args;
+    }
+
+    static String name(Map<String, Object> result) {
+        Object params = result.get("params");
+        return result.get("benchmark") + (params == null ? "" : new TreeMap<>(Json.object(params)).toString());
+    }
+
+    static int threads(Map<String, Object> result) {
+        return (int) Json.number(result.get("threads"));
+    }
+
+    /**
+     * One observation per iteration: the median of its histogram for {@code sample} mode, its score otherwise.
+     */
+    static Stats.Sample samples(Map<String, Object> primaryMetric) {
+        List<Double> values = new ArrayList<>();
+        if (primaryMetric.containsKey("rawDataHistogram")) {
+            for (Object fork : Json.array(primaryMetric.get("rawDataHistogram"))) {
+                for (Object iteration : Json.array(fork)) {
+                    Stats.Sample buckets = buckets(Json.array(iteration));
+                    if (buckets.count() > 0) {
+                        values.add(buckets.percentiles(0.5)[0]);
+                    }
+                }
+            }
+        } else if (primaryMetric.containsKey("rawData")) {
+            for (Object fork : Json.array(primaryMetric.get("rawData"))) {
+                for (Object score : Json.array(fork)) {
+                    values.add(Json.number(score));
+                }
+            }
+        }
+        return new Stats.Sample(values.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    /**
+     * Every recorded latency of every iteration, weighted by its count, for plotting percentiles; the iteration scores
+     * when there is no histogram.
+     */
+    static Stats.Sample histogram(Map<String, Object> primaryMetric) {
+        if (!primaryMetric.containsKey("rawDataHistogram")) {
+            return samples(primaryMetric);
+        }
+        List<Object> buckets = new ArrayList<>();
+        for (Object fork : Json.array(primaryMetric.get("rawDataHistogram"))) {
+            for (Object iteration : Json.array(fork)) {
+                buckets.addAll(Json.array(iteration));
+            }
+        }
+        return buckets(buckets);
+    }
+
+    private static Stats.Sample buckets(List<Object> buckets) {
+        double[] values = new double[buckets.size()];
+        double[] weights = new double[buckets.size()];
+        for (int i = 0; i < values.length; i++) {
+            List<Object> pair = Json.array(buckets.get(i));
+            values[i] = Json.number(pair.get(0));
+            weights[i] = Json.number(pair.get(1));
+        }
+        return new Stats.Sample(values, weights);
+    }
+
+    /**
+     * Relative change and interval are fractions of the baseline mean.
+     */
+    final class Row {
+
+        final String name;
+        final String config;
+        final String mode;
+        final int threads;
+        final String unit;
+        final double baseline;
+        final double candidate;
+        final double change;
+        final double low;
+        final double high;
+        final double welchP;
+        final double mannWhitneyP;
+        final double cliffsDelta;
+        final String verdict;
+
+        private Row(Map<String, Object> result, String config, Stats.Sample before, Stats.Sample after) {
+            Stats.Welch welch = new Stats.Welch(before, after, 1 - alpha);
+            Stats.MannWhitney mannWhitney = new Stats.MannWhitney(before, after);
+            name = name(result);
+            this.config = config;
+            mode = (String) result.get("mode");
+            threads = threads(result);
+            unit = (String) Json.object(result.get("primaryMetric")).get("scoreUnit");
+            baseline = before.mean();
+            candidate = after.mean();
+            change = welch.difference / baseline;
+            low = welch.low / baseline;
+            high = welch.high / baseline;
+            welchP = welch.p;
+            mannWhitneyP = mannWhitney.p;
+            cliffsDelta = mannWhitney.cliffsDelta;
+            if (welch.p < alpha && mannWhitney.p < alpha && Math.abs(change) >= threshold) {
+                verdict = (change > 0) == "thrpt".equals(mode) ? "IMPROVED" : "REGRESSED";
+            } else {
+                verdict = "";
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package tool;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Re-runs the selection once per JVM configuration, the cartesian product of collector, heap size, compressed oops
+ * and large pages, passing the flags to the forks, and prints the configurations side by side per benchmark: score,
+ * tail latency for {@code sample} mode, and allocation and GC figures from the JMH {@code gc} profiler.
+ */
+class ConfigMatrix {
+
+    private static final Map<String, List<String>> COLLECTORS = new LinkedHashMap<>();
+    private static final Map<String, List<String>> LARGE_PAGES = new LinkedHashMap<>();
+
+    static {
+        COLLECTORS.put("g1", List.of("-XX:+UseG1GC"));
+        COLLECTORS.put("parallel", List.of("-XX:+UseParallelGC"));
+        COLLECTORS.put("serial", List.of("-XX:+UseSerialGC"));
+        COLLECTORS.put("zgc", zgc(Runtime.version().feature()));
+        COLLECTORS.put("shenandoah", List.of("-XX:+UseShenandoahGC"));
+        COLLECTORS.put("epsilon", List.of("-XX:+UnlockExperimentalVMOptions", "-XX:+UseEpsilonGC"));
+        LARGE_PAGES.put("off", List.of("-XX:-UseLargePages", "-XX:-UseTransparentHugePages"));
+        LARGE_PAGES.put("thp", List.of("-XX:+UseTransparentHugePages"));
+        LARGE_PAGES.put("on", List.of("-XX:+UseLargePages"));
+    }
+
+    private final List<Config> configs = new ArrayList<>();
+
+    /**
+     * An empty axis is left at the JVM default.
+     */
+    ConfigMatrix(List<String> collectors, List<String> heaps, List<String> compressedOops, List<String> largePages) {
+        configs.add(new Config("", List.of()));
+        for (String collector : collectors) {
+            if (!COLLECTORS.containsKey(collector)) {
+                throw new IllegalArgumentException("Unknown collector " + collector + ", expected one of " + COLLECTORS.keySet());
+            }
+        }
+        expand(collectors, collector -> new Config(collector, COLLECTORS.get(collector)));
+        expand(heaps, heap -> new Config("heap=" + heap, List.of("-Xms" + heap, "-Xmx" + heap)));
+        expand(compressedOops, oops -> {
+            if (!oops.equals("on") && !oops.equals("off")) {
+                throw new IllegalArgumentException("--compressed-oops expects on or off but was " + oops);
+            }
+            return new Config("oops=" + oops, List.of(oops.equals("on") ? "-XX:+UseCompressedOops" : "-XX:-UseCompressedOops"));
+        });
+        expand(largePages, pages -> {
+            if (!LARGE_PAGES.containsKey(pages)) {
+                throw new IllegalArgumentException("--large-pages expects one of " + LARGE_PAGES.keySet() + " but was " + pages);
+            }
+            return new Config("pages=" + pages, LARGE_PAGES.get(pages));
+        });
+    }
+
+    /**
+     * Generational ZGC is opt-in on JDK 21 and 22 and the only mode from 23 on.
+     */
+    private static List<String> zgc(int feature) {
+        return feature == 21 || feature == 22 ? List.of("-XX:+UseZGC", "-XX:+ZGenerational") : List.of("-XX:+UseZGC");
+    }
+
+    private void expand(List<String> values, Function<String, Config> config) {
+        if (values.isEmpty()) {
+            return;
+        }
+        List<Config> expanded = new ArrayList<>();
+        for (Config base : configs) {
+            for (String value : values) {
+                Config axis = config.apply(value);
+                List<String> flags = new ArrayList<>(base.flags);
+                flags.addAll(axis.flags);
+                expanded.add(new Config((base.name + " " + axis.name).trim(), flags));
+            }
+        }
+        configs.clear();
+        configs.addAll(expanded);
+    }
+
+    /**
+     * One JMH run per configuration and group of benchmarks. A group's own {@code jvmArgsAppend}, its
+     * {@code @Fork} and the user's extra fork arguments, comes first so a configuration flag wins. A configuration
+     * the JVM rejects leaves its results out and the others still run.
+     */
+    Map<Config, Collection<RunResult>> run(List<Options> groups) throws RunnerException {
+        Map<Config, Collection<RunResult>> results = new LinkedHashMap<>();
+        for (Config config : configs) {
+            System.out.println("# config " + config + ": " + String.join(" ", config.flags));
+            List<RunResult> configResults = new ArrayList<>();
+            for (Options group : groups) {
+                List<String> flags = new ArrayList<>(group.getJvmArgsAppend().orElse(Collections.emptyList()));
+                flags.addAll(config.flags);
+                configResults.addAll(new Runner(new OptionsBuilder().parent(group)
+                        .jvmArgsAppend(flags.toArray(new String[0])).build()).run());
+            }
+            results.put(config, configResults);
+        }
+        return results;
+    }
+
+    void report(Map<Config, Collection<RunResult>> results, PrintStream out) {
+        Map<String, Map<Config, RunResult>> byBenchmark = new LinkedHashMap<>();
+        for (Map.Entry<Config, Collection<RunResult>> entry : results.entrySet()) {
+            for (RunResult result : entry.getValue()) {
+                byBenchmark.computeIfAbsent(key(result.getParams()), key -> new LinkedHashMap<>()).put(entry.getKey(), result);
+            }
+        }
+        int width = configs.stream().mapToInt(config -> config.toString().length()).max().orElse(7);
+        for (Map.Entry<String, Map<Config, RunResult>> entry : byBenchmark.entrySet()) {
+            RunResult first = entry.getValue().values().iterator().next();
+            out.printf("%n%s (%s)%n", entry.getKey(), first.getPrimaryResult().getScoreUnit());
+            out.printf("  %-" + width + "s %14s %12s %8s %12s %12s %14s %9s %10s%n", "config", "score", "error", "change",
+                    "p99", "p99.9", "alloc B/op", "gc count", "gc ms");
+            Double baseline = null;
+            for (Config config : configs) {
+                RunResult result = entry.getValue().get(config);
+                if (result == null) {
+                    out.printf("  %-" + width + "s %14s%n", config, "failed");
+                    continue;
+                }
+                Result primary = result.getPrimaryResult();
+                if (baseline == null) {
+                    baseline = primary.getScore();
+                }
+                boolean sample = result.getParams().getMode() == Mode.SampleTime;
+                out.printf("  %-" + width + "s %14.6g %12.6g %+7.1f%% %12s %12s %14s %9s %10s%n", config, primary.getScore(),
+                        primary.getScoreError(), (primary.getScore() / baseline - 1) * 100,
+                        sample ? format(primary.getStatistics().getPercentile(99)) : "-",
+                        sample ? format(primary.getStatistics().getPercentile(99.9)) : "-",
+                        secondary(result, "·gc.alloc.rate.norm"), secondary(result, "·gc.count"),
+                        secondary(result, "·gc.time"));
+            }
+        }
+    }
+
+    private static String key(BenchmarkParams params) {
+        Map<String, String> values = new TreeMap<>();
+        for (String key : params.getParamsKeys()) {
+            values.put(key, params.getParam(key));
+        }
+        return params.getBenchmark() + (values.isEmpty() ? "" : " " + values) + " " + params.getMode().shortLabel();
+    }
+
+    private static String secondary(RunResult result, String label) {
+        Result value = result.getSecondaryResults().get(label);
+        return value == null ? "-" : format(value.getScore());
+    }
+
+    private static String format(double value) {
+        return String.format("%.3f", value);
+    }
+
+    static final class Config {
+
+        private final String name;
+        private final List<String> flags;
+
+        private Config(String name, List<String> flags) {
+            this.name = name;
+            this.flags = flags;
+        }
+
+        @Override
+        public String toString() {
+            return name.isEmpty() ? "default" : name;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package tool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Partitions the CPUs this process may run on into disjoint slots for concurrent forks. A slot is a number of whole
+ * physical cores, with all their SMT siblings, from a single NUMA node, so two slots never share a core's execution
+ * units or L1/L2 and each slot's memory stays local. The first cores are reserved for the launcher, the OS and
+ * interrupts. Topology comes from Linux sysfs; without it every CPU counts as its own core on node 0.
+ */
+final class CpuSets {
+
+    private static final Path CPU = Paths.get("/sys/devices/system/cpu");
+    private static final Path NODE = Paths.get("/sys/devices/system/node");
+
+    private CpuSets() {
+    }
+
+    /**
+     * Slots of {@code coresPerSlot} cores after reserving {@code reservedCores}, at most {@code maxSlots}; a machine
+     * too small for two slots gets a single slot holding every allowed CPU.
+     */
+    static List<Slot> partition(int coresPerSlot, int reservedCores, int maxSlots) {
+        TreeSet<Integer> allowed = allowed();
+        Map<Integer, Integer> nodeOfCpu = nodes();
+        Map<Integer, Map<String, List<Integer>>> coresByNode = new TreeMap<>();
+        for (int cpu : allowed) {
+            Path topology = CPU.resolve("cpu" + cpu).resolve("topology");
+            String core = read(topology.resolve("physical_package_id"), "0") + ":" + read(topology.resolve("core_id"), "cpu" + cpu);
+            coresByNode.computeIfAbsent(nodeOfCpu.getOrDefault(cpu, 0), node -> new LinkedHashMap<>())
+                    .computeIfAbsent(core, key -> new ArrayList<>()).add(cpu);
+        }
+        int reserve = reservedCores;
+        List<Slot> slots = new ArrayList<>();
+        for (Map.Entry<Integer, Map<String, List<Integer>>> node : coresByNode.entrySet()) {
+            List<List<Integer>> cores = new ArrayList<>(node.getValue().values());
+            int skip = Math.min(reserve, cores.size());
+            reserve -= skip;
+            for (int from = skip; from + coresPerSlot <= cores.size() && slots.size() < maxSlots; from += coresPerSlot) {
+                List<Integer> cpus = cores.subList(from, from + coresPerSlot).stream()
+                        .flatMap(List::stream).sorted().collect(Collectors.toList());
+                slots.add(new Slot(slots.size(), node.getKey(), cpus));
+            }
+        }
+        if (slots.size() < 2) {
+            return Collections.singletonList(new Slot(0, coresByNode.size() == 1 ? coresByNode.keySet().iterator().next() : -1,
+                    new ArrayList<>(allowed)));
+        }
+        return slots;
+    }
+
+    /**
+     * {@code Cpus_allowed_list} of this process, so slots stay inside an outer taskset or cgroup cpuset.
+     */
+    private static TreeSet<Integer> allowed() {
+        try (Stream<String> lines = Files.lines(Paths.get("/proc/self/status"))) {
+            String list = lines.filter(line -> line.startsWith("Cpus_allowed_list:")).findFirst().orElse(null);
+            if (list != null) {
+                return parseList(list.substring(list.indexOf(':') + 1).trim());
+            }
+        } catch (IOException | RuntimeException e) {
+            // fall through to the JVM's count
+        }
+        TreeSet<Integer> cpus = new TreeSet<>();
+        for (int cpu = 0; cpu < Runtime.getRuntime().availableProcessors(); cpu++) {
+            cpus.add(cpu);
+        }
+        return cpus;
+    }
+
+    private static Map<Integer, Integer> nodes() {
+        Map<Integer, Integer> nodeOfCpu = new TreeMap<>();
+        if (!Files.isDirectory(NODE)) {
+            return nodeOfCpu;
+        }
+        try (Stream<Path> entries = Files.list(NODE)) {
+            for (Path node : (Iterable<Path>) entries::iterator) {
+                String name = node.getFileName().toString();
+                if (name.matches("node[0-9]+")) {
+                    for (int cpu : parseList(read(node.resolve("cpulist"), ""))) {
+                        nodeOfCpu.put(cpu, Integer.parseInt(name.substring(4)));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            return nodeOfCpu;
+        }
+        return nodeOfCpu;
+    }
+
+    /**
+     * Parses the kernel's list format, e.g. {@code 0-3,8,10-11}.
+     */
+    static TreeSet<Integer> parseList(String list) {
+        TreeSet<Integer> cpus = new TreeSet<>();
+        for (String range : list.split(",")) {
+            if (range.isBlank()) {
+                continue;
+            }
+            int dash = range.indexOf('-');
+            int first = Integer.parseInt(range.substring(0, dash < 0 ? range.length() : dash).trim());
+            int last = dash < 0 ? first : Integer.parseInt(range.substring(dash + 1).trim());
+            for (int cpu = first; cpu <= last; cpu++) {
+                cpus.add(cpu);
+            }
+        }
+        return cpus;
+    }
+
+    private static String read(Path file, String fallback) {
+        try {
+            return Files.readString(file).trim();
+        } catch (IOException | RuntimeException e) {
+            return fallback;
+        }
+    }
+
+    static final class Slot {
+
+        private final int id;
+        private final int node;
+        private final List<Integer> cpus;
+
+        private Slot(int id, int node, List<Integer> cpus) {
+            this.id = id;
+            this.node = node;
+            this.cpus = cpus;
+        }
+
+        int id() {
+            return id;
+        }
+
+        String cpuList() {
+            return cpus.stream().map(String::valueOf).collect(Collectors.joining(","));
+        }
+
+        /**
+         * Command prefix that runs a process on this slot's CPUs: {@code numactl} with memory bound to the node when
+         * it is installed and the node is known, {@code taskset} otherwise. Forked JVMs inherit the affinity.
+         */
+        List<String> pin() {
+            if (node >= 0 && onPath("numactl")) {
+                return List.of("numactl", "--physcpubind=" + cpuList(), "--membind=" + node);
+            }
+            if (onPath("taskset")) {
+                return List.of("taskset", "-c", cpuList());
+            }
+            throw new IllegalStateException("Pinning forks needs taskset or numactl on the PATH");
+        }
+
+        @Override
+        public String toString() {
+            return "slot " + id + " (node " + (node < 0 ? "?" : node) + ", cpus " + cpuList() + ")";
+        }
+
+        private static boolean onPath(String command) {
+            String path = System.getenv("PATH");
+            return path != null && Stream.of(path.split(":")).anyMatch(directory -> Files.isExecutable(Paths.get(directory, command)));
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package tool;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Snapshot of the machine state that moves benchmark numbers: CPU model, frequency governor and turbo, transparent
+ * huge pages, the file system and block device scheduler under {@code java.io.tmpdir} (where the corpus lives), kernel,
+ * cores and load, and the JVM. Everything is read from Linux procfs and sysfs; what cannot be read is recorded as
+ * {@code unknown} rather than failing, so the launcher works elsewhere too. The {@code jvm.*} keys describe the
+ * launcher's JVM; {@link #forks} describes the JVMs the benchmarks ran in, which {@code @Fork} annotations,
+ * {@code --jvm-args-append} and the matrix axes change.
+ */
+final class Environment {
+
+    static final String UNKNOWN = "unknown";
+    private static final Path CPU = Paths.get("/sys/devices/system/cpu");
+    private static final Pattern SELECT_GC = Pattern.compile("-XX:\\+Use(\\w+)GC");
+
+    private final Map<String, String> fingerprint = new LinkedHashMap<>();
+    private final List<String> warnings = new ArrayList<>();
+
+    private Environment() {
+    }
+
+    static Environment capture() {
+        Environment environment = new Environment();
+        environment.cpu();
+        environment.memory();
+        environment.storage(Paths.get(System.getProperty("java.io.tmpdir")).toAbsolutePath());
+        environment.system();
+        environment.jvm();
+        return environment;
+    }
+
+    /**
+     * Keys in capture order, e.g. {@code cpu.governor}.
+     */
+    Map<String, String> fingerprint() {
+        return fingerprint;
+    }
+
+    List<String> warnings() {
+        return warnings;
+    }
+
+    private void cpu() {
+        String model = UNKNOWN;
+        for (String line : lines(Paths.get("/proc/cpuinfo"))) {
+            if (line.startsWith("model name")) {
+                model = line.substring(line.indexOf(':') + 1).trim();
+                break;
+            }
+        }
+        fingerprint.put("cpu.model", model);
+        TreeSet<String> governors = new TreeSet<>();
+        TreeSet<Long> frequencies = new TreeSet<>();
+        for (Path cpu : list(CPU, "cpu[0-9]*")) {
+            String governor = first(cpu.resolve("cpufreq/scaling_governor"));
+            if (governor != null) {
+                governors.add(governor);
+            }
+            String frequency = first(cpu.resolve("cpufreq/scaling_cur_freq"));
+            if (frequency != null) {
+                frequencies.add(Long.parseLong(frequency) / 1000);
+            }
+        }
+        String governor = governors.isEmpty() ? UNKNOWN : String.join(",", governors);
+        fingerprint.put("cpu.governor", governor);
+        fingerprint.put("cpu.frequency.mhz", frequencies.isEmpty() ? UNKNOWN
+                : frequencies.first().equals(frequencies.last()) ? frequencies.first().toString()
+                : frequencies.first() + "-" + frequencies.last());
+        if (!governors.isEmpty() && !governor.equals("performance")) {
+            warnings.add("CPU frequency governor is " + governor + ", not performance: clocks ramp with load");
+        }
+        String turbo = turbo();
+        fingerprint.put("cpu.turbo", turbo);
+        if (turbo.equals("on")) {
+            warnings.add("Turbo boost is on: clocks depend on temperature and on how many cores are busy");
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        fingerprint.put("cpu.available", String.valueOf(processors));
+        fingerprint.put("cpu.online", orUnknown(first(CPU.resolve("online"))));
+        String isolated = first(CPU.resolve("isolated"));
+        fingerprint.put("cpu.isolated", isolated == null || isolated.isEmpty() ? "none" : isolated);
+        if (processors < 2) {
+            warnings.add("Only " + processors + " CPU available: benchmark, JIT and GC threads compete for it");
+        }
+    }
+
+    /**
+     * {@code intel_pstate/no_turbo} on Intel, {@code cpufreq/boost} on acpi-cpufreq and AMD.
+     */
+    private static String turbo() {
+        String noTurbo = first(CPU.resolve("intel_pstate/no_turbo"));
+        if (noTurbo != null) {
+            return noTurbo.equals("0") ? "on" : "off";
+        }
+        String boost = first(CPU.resolve("cpufreq/boost"));
+        if (boost != null) {
+            return boost.equals("1") ? "on" : "off";
+        }
+        return UNKNOWN;
+    }
+
+    private void memory() {
+        String thp = selected(first(Paths.get("/sys/kernel/mm/transparent_hugepage/enabled")));
+        fingerprint.put("thp.enabled", thp);
+        fingerprint.put("thp.defrag", selected(first(Paths.get("/sys/kernel/mm/transparent_hugepage/defrag"))));
+        if (thp.equals("always")) {
+            warnings.add("Transparent huge pages are always on: khugepaged collapses and compaction stalls show up as outliers");
+        }
+    }
+
+    private void storage(Path directory) {
+        fingerprint.put("tmpdir", directory.toString());
+        try {
+            FileStore store = Files.getFileStore(directory);
+            fingerprint.put("tmpdir.filesystem", store.type());
+            fingerprint.put("tmpdir.device", store.name());
+            if (store.type().equals("tmpfs")) {
+                warnings.add("java.io.tmpdir is on tmpfs: file benchmarks measure memory copies, not a block device");
+            } else if (store.type().equals("overlay")) {
+                warnings.add("java.io.tmpdir is on overlayfs: reads and writes go through the container layer");
+            }
+        } catch (IOException e) {
+            fingerprint.put("tmpdir.filesystem", UNKNOWN);
+        }
+        String scheduler = scheduler(directory);
+        fingerprint.put("tmpdir.scheduler", scheduler);
+        if (scheduler.equals("bfq") || scheduler.equals("cfq")) {
+            warnings.add("Block device scheduler is " + scheduler + ": fairness slicing adds I/O latency variance");
+        }
+    }
+
+    /**
+     * Follows the mount holding {@code directory} to its device in {@code /sys/dev/block}; a partition has its queue
+     * on the parent disk.
+     */
+    private static String scheduler(Path directory) {
+        String device = null;
+        int longest = -1;
+        for (String line : lines(Paths.get("/proc/self/mountinfo"))) {
+            String[] fields = line.split(" ");
+            if (fields.length > 4 && directory.startsWith(fields[4]) && fields[4].length() > longest) {
+                longest = fields[4].length();
+                device = fields[2];
+            }
+        }
+        if (device == null) {
+            return UNKNOWN;
+        }
+        Path block = Paths.get("/sys/dev/block", device);
+        String scheduler = first(block.resolve("queue/scheduler"));
+        if (scheduler == null) {
+            scheduler = first(block.resolve("../queue/scheduler"));
+        }
+        return scheduler == null ? "none (no block device)" : selected(scheduler);
+    }
+
+    private void system() {
+        fingerprint.put("kernel", System.getProperty("os.name") + " " + System.getProperty("os.version") + " "
+                + System.getProperty("os.arch"));
+        String loadavg = first(Paths.get("/proc/loadavg"));
+        if (loadavg == null) {
+            fingerprint.put("load.average", UNKNOWN);
+            return;
+        }
+        String[] fields = loadavg.split(" ");
+        fingerprint.put("load.average", fields[0] + " " + fields[1] + " " + fields[2]);
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (Double.parseDouble(fields[0]) > processors / 2.0) {
+            warnings.add("Load average is " + fields[0] + " on " + processors + " CPUs: other work is competing");
+        }
+    }
+
+    private void jvm() {
+        fingerprint.put("jvm.version", System.getProperty("java.version"));
+        fingerprint.put("jvm.vm", System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version"));
+        List<String> flags = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        fingerprint.put("jvm.flags", String.join(" ", flags));
+        fingerprint.put("jvm.gc", ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .map(GarbageCollectorMXBean::getName)
+                .collect(Collectors.joining(",")));
+        for (String flag : flags) {
+            if (flag.startsWith("-agentlib:jdwp") || flag.startsWith("-Xdebug")) {
+                warnings.add("Debugging is enabled (" + flag + ") and JMH forks inherit the launcher's JVM flags");
+            } else if (flag.equals("-Xint")) {
+                warnings.add("-Xint is set and JMH forks inherit it: nothing is JIT compiled");
+            }
+        }
+    }
+
+    /**
+     * Fingerprint of the forked JVMs from the arguments each benchmark ran with: {@code fork.jvm.args} lists every
+     * distinct argument line, and {@code fork.jvm.gc} the collectors they select ({@code default} when none does).
+     */
+    static Map<String, String> forks(Collection<Collection<String>> jvmArgs) {
+        TreeSet<String> lines = new TreeSet<>();
+        TreeSet<String> collectors = new TreeSet<>();
+        for (Collection<String> args : jvmArgs) {
+            lines.add(String.join(" ", args));
+            String collector = "default";
+            for (String arg : args) {
+                Matcher gc = SELECT_GC.matcher(arg);
+                if (gc.matches()) {
+                    collector = gc.group(1);
+                }
+            }
+            collectors.add(collector);
+        }
+        Map<String, String> fingerprint = new LinkedHashMap<>();
+        fingerprint.put("fork.jvm.args", String.join(" | ", lines));
+        fingerprint.put("fork.jvm.gc", String.join(",", collectors));
+        return fingerprint;
+    }
+
+    /**
+     * The active choice of a sysfs multiple-choice file such as {@code always [madvise] never}.
+     */
+    private static String selected(String choices) {
+        if (choices == null) {
+            return UNKNOWN;
+        }
+        int open = choices.indexOf('[');
+        int close = choices.indexOf(']');
+        return open >= 0 && close > open ? choices.substring(open + 1, close) : choices;
+    }
+
+    private static String orUnknown(String value) {
+        return value == null ? UNKNOWN : value;
+    }
+
+    private static String first(Path file) {
+        List<String> lines = lines(file);
+        return lines.isEmpty() ? null : lines.get(0).trim();
+    }
+
+    private static List<String> lines(Path file) {
+        try {
+            return Files.readAllLines(file);
+        } catch (IOException | RuntimeException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    private static List<Path> list(Path directory, String glob) {
+        List<Path> paths = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return paths;
+        }
+        try (Stream<Path> entries = Files.list(directory)) {
+            entries.filter(path -> path.getFileSystem().getPathMatcher("glob:" + glob).matches(path.getFileName()))
+                    .sorted()
+                    .forEach(paths::add);
+        } catch (IOException e) {
+            return paths;
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,195 @@
+package tool;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON to read JMH result files back: objects become {@link LinkedHashMap}s, arrays {@link ArrayList}s,
+ * numbers {@link Double}s. JMH writes non-finite scores as the strings {@code "NaN"} and {@code "Infinity"}, which
+ * {@link #number} understands.
+ */
+final class Json {
+
+    private final String text;
+    private int index;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    static Object parse(String text) {
+        Json json = new Json(text);
+        Object value = json.value();
+        json.skipWhitespace();
+        if (json.index != text.length()) {
+            throw json.error("Trailing content");
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> object(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Object> array(Object value) {
+        return (List<Object>) value;
+    }
+
+    static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble((String) value);
+    }
+
+    private Object value() {
+        skipWhitespace();
+        if (index >= text.length()) {
+            throw error("Unexpected end of input");
+        }
+        char c = text.charAt(index);
+        switch (c) {
+            case '{':
+                return parseObject();
+            case '[':
+                return parseArray();
+            case '"':
+                return parseString();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            default:
+                return parseNumber();
+        }
+    }
+
+    private Map<String, Object> parseObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        index++;
+        skipWhitespace();
+        if (peek() == '}') {
+            index++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            String key = parseString();
+            skipWhitespace();
+            expect(':');
+            object.put(key, value());
+            skipWhitespace();
+            if (peek() == ',') {
+                index++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> parseArray() {
+        List<Object> array = new ArrayList<>();
+        index++;
+        skipWhitespace();
+        if (peek() == ']') {
+            index++;
+            return array;
+        }
+        while (true) {
+            array.add(value());
+            skipWhitespace();
+            if (peek() == ',') {
+                index++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String parseString() {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            if (index >= text.length()) {
+                throw error("Unterminated string");
+            }
+            char c = text.charAt(index++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            char escaped = text.charAt(index++);
+            switch (escaped) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    value.append((char) Integer.parseInt(text.substring(index, index + 4), 16));
+                    index += 4;
+                    break;
+                default:
+                    value.append(escaped);
+            }
+        }
+    }
+
+    private Double parseNumber() {
+        int start = index;
+        while (index < text.length() && "+-0123456789.eE".indexOf(text.charAt(index)) >= 0) {
+            index++;
+        }
+        if (start == index) {
+            throw error("Unexpected character '" + text.charAt(index) + "'");
+        }
+        return Double.valueOf(text.substring(start, index));
+    }
+
+    private Object literal(String word, Object value) {
+        if (!text.startsWith(word, index)) {
+            throw error("Expected " + word);
+        }
+        index += word.length();
+        return value;
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        index++;
+    }
+
+    private char peek() {
+        return index < text.length() ? text.charAt(index) : '\0';
+    }
+
+    private void skipWhitespace() {
+        while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + index);
+    }
+}
@@ -0,0 +1,484 @@
+package tool;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.runner.options.WarmupMode;
+
+import tool.profile.JfrProfiler;
+import tool.profile.JitProfiler;
+import tool.profile.LatencyProfiler;
+import tool.profile.ProcFsProfiler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Single entry point of the benchmark jar:
+ * <pre>
+ * java -jar target/benchmarks.jar [run|list] [options]
+ * </pre>
+ * Every run is appended to a {@link ResultStore}, and {@code compare} checks a run against a baseline from it.
+ * Without overrides every benchmark runs with one fork, bulk warmup and two warmup iterations, which is what the
+ * per-class {@code main} methods used to hard-code. Anything set on the command line wins over the annotations, except
+ * that {@code --jvm-args-append} adds to {@code @Fork(jvmArgsAppend)} rather than replacing it.
+ */
+public class Launcher {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -jar benchmarks.jar [run|scale|adaptive|matrix|parallel|list|runs|report|compare] [options]",
+            "",
+            "Selection (repeatable; union within a kind, intersection across kinds):",
+            "  --package <name>          benchmark classes in a package or its subpackages",
+            "  --tag <tag>               benchmark classes annotated with @Tag",
+            "  --include <regex>         benchmarks whose full name matches",
+            "  --exclude <regex>         drop benchmarks whose full name matches",
+            "",
+            "Overrides:",
+            "  -p, --param <name=v1,v2>  replace the values of a @Param (repeatable)",
+            "  -f, --forks <n>           forks per benchmark (default 1)",
+            "  -t, --threads <n>         worker threads",
+            "  -wi, --warmup-iterations <n>   (default 2)",
+            "  -i, --iterations <n>      measurement iterations",
+            "  -w, --warmup-time <time>  e.g. 500ms, 2s",
+            "  -r, --time <time>         measurement iteration time",
+            "  -bm, --mode <mode>        thrpt, avgt, sample, ss or all",
+            "  --jvm-args-append <args>  extra JVM arguments for the forks, space separated, after the ones of",
+            "                            @Fork(jvmArgsAppend)",
+            "",
+            "Profilers and output:",
+            "  -prof, --profiler <name[:options]>  any JMH profiler, e.g. gc, stack, perfnorm (repeatable), or",
+            "                            procfs: syscalls, I/O bytes, context switches and CPU time from Linux /proc",
+            "                            jfr[:dir=jfr,top=10]: Flight Recorder per fork with hot methods, allocation",
+            "                            sites, GC pauses and monitor/park contention",
+            "                            jit[:dir=jit,inlining=false,top=20]: compiles, OSR, deopts and failed inlining",
+            "                            per warmup and measurement iteration, flags C2 code deoptimized during",
+            "                            measurement; warms up each benchmark on its own instead of in bulk",
+            "                            gc and latency are always on: allocated bytes per op (gc.alloc.rate.norm),",
+            "                            percentiles of latencies and gauges such as hit ratios the benchmark records",
+            "  --format <json|csv|scsv|text|latex> machine-readable result format",
+            "  --output <file>           result file (default jmh-result.<format>)",
+            "",
+            "Results store (every run is kept there as JMH JSON plus metadata, including a fingerprint of CPU",
+            "governor/turbo, THP, tmpdir file system and I/O scheduler, kernel, load and JVM; settings known to add",
+            "noise are reported as warnings before the run):",
+            "  --store <dir>             store directory (default " + ResultStore.DEFAULT_DIRECTORY + ")",
+            "  --label <name>            name the run, e.g. baseline or a version, to refer to it later",
+            "",
+            "scale [--thread-param <name>] [--max-threads <n>] [run options]",
+            "                            run the selection in throughput mode at 1, 2, 4 .. n threads (default: the",
+            "                            core count) and fit Amdahl and USL models; the thread count is JMH's worker",
+            "                            threads, or the given @Param such as numberOfProducerThreads",
+            "adaptive [--target 0.02] [--budget 30min] [--max-forks 10] [run options]",
+            "                            run each benchmark one fork at a time until every 95% confidence interval is",
+            "                            within +-target of the mean; -i is the iterations per fork, and forks whose",
+            "                            iteration series is still warming up get the unsteady prefix dropped and a",
+            "                            longer warmup for the next fork",
+            "matrix [--gc <list>] [--heap <list>] [--compressed-oops on,off] [--large-pages off,thp,on] [run options]",
+            "                            re-run the selection for every combination of JVM settings and print them side",
+            "                            by side with score, p99/p99.9 (sample mode), allocation and GC time. Collectors:",
+            "                            g1, parallel, serial, zgc (generational where the JDK has it), shenandoah,",
+            "                            epsilon (never collects: size the heap for the whole fork). Heap sizes such as",
+            "                            512m,4g set -Xms and -Xmx. Without any axis, all of g1..epsilon but shenandoah",
+            "parallel [--cores-per-slot 2] [--reserve 1] [--slots <n>] [--serial <regex>] [--parallel-io]",
+            "         [--verify 0.1] [run options]",
+            "                            run every fork as its own JVM pinned to a slot of whole cores (SMT siblings",
+            "                            included) on one NUMA node, one slot per concurrent fork; --reserve cores are",
+            "                            left to the OS. Benchmarks with more than one thread, classes tagged",
+            "                            concurrency, disk-bound classes (tagged read, write, transfer, durability or",
+            "                            mmap; they share the tmpdir device and page cache) unless --parallel-io, and",
+            "                            --serial matches run alone afterwards. Then --verify of the concurrent",
+            "                            benchmarks are re-run alone and tested for interference (--alpha, --threshold",
+            "                            as for compare); the exit status is 1 when any of them differs.",
+            "                            Every class of this suite is tagged, so by default everything runs serially",
+            "                            and there is no saving. With --parallel-io the single-threaded forks of the",
+            "                            disk classes without a concurrency tag (FileChannelJmh, FileChannelWriteJmh,",
+            "                            StreamReadJmh, the jdk22 read classes) run concurrently, at the cost of sharing",
+            "                            the device and page cache: check the --verify result. Queue benchmarks such as",
+            "                            RingBufferJmh are tagged concurrency and always run serially",
+            "runs [--store <dir>]        list stored runs",
+            "report [--run <run>] [--baseline <run>] [--output <file>] [--thread-param <name>] [--store <dir>]",
+            "                            write a self-contained HTML report of a stored run (default latest) with",
+            "                            latency percentiles, score by parameter, scaling and the baseline comparison",
+            "compare --baseline <run> [--candidate <run>] [--alpha 0.05] [--threshold 0.02] [--store <dir>]",
+            "                            test every benchmark for a significant change; exits with 1 on a regression.",
+            "                            <run> is an id or id prefix, a label, latest (the default candidate) or latest~N");
+
+    private static final Set<String> FLAGS = Set.of("--help", "--parallel-io");
+    private static final Map<String, String> ALIASES = Map.of(
+            "-p", "--param", "-f", "--forks", "-t", "--threads", "-wi", "--warmup-iterations", "-i", "--iterations",
+            "-w", "--warmup-time", "-r", "--time", "-bm", "--mode", "-prof", "--profiler", "-h", "--help");
+    private static final Map<String, String> PROFILER_ALIASES = Map.of("procfs", ProcFsProfiler.class.getName(),
+            "jfr", JfrProfiler.class.getName(), "jit", JitProfiler.class.getName(), "latency", LatencyProfiler.class.getName());
+    private static final Set<String> SELECTION_OPTIONS = Set.of("--package", "--tag", "--include", "--exclude");
+    private static final Set<String> RUN_OPTIONS = Set.of("--package", "--tag", "--include", "--exclude", "--param",
+            "--forks", "--threads", "--warmup-iterations", "--iterations", "--warmup-time", "--time", "--mode",
+            "--jvm-args-append", "--profiler", "--format", "--output", "--store", "--label");
+    private static final Set<String> SCALE_OPTIONS = Set.of("--package", "--tag", "--include", "--exclude", "--param",
+            "--forks", "--warmup-iterations", "--iterations", "--warmup-time", "--time", "--jvm-args-append",
+            "--profiler", "--format", "--output", "--store", "--label", "--thread-param", "--max-threads");
+    private static final Set<String> ADAPTIVE_OPTIONS = Set.of("--package", "--tag", "--include", "--exclude", "--param",
+            "--threads", "--warmup-iterations", "--iterations", "--warmup-time", "--time", "--mode", "--jvm-args-append",
+            "--profiler", "--format", "--output", "--store", "--label", "--target", "--budget", "--max-forks");
+    private static final Set<String> MATRIX_OPTIONS = Set.of("--package", "--tag", "--include", "--exclude", "--param",
+            "--forks", "--threads", "--warmup-iterations", "--iterations", "--warmup-time", "--time", "--mode",
+            "--jvm-args-append", "--profiler", "--format", "--output", "--store", "--label", "--gc", "--heap",
+            "--compressed-oops", "--large-pages");
+    private static final Set<String> PARALLEL_OPTIONS = Set.of("--package", "--tag", "--include", "--exclude", "--param",
+            "--forks", "--threads", "--warmup-iterations", "--iterations", "--warmup-time", "--time", "--mode",
+            "--jvm-args-append", "--profiler", "--format", "--output", "--store", "--label", "--cores-per-slot",
+            "--reserve", "--slots", "--serial", "--parallel-io", "--verify", "--alpha", "--threshold");
+    private static final Set<String> REPORT_OPTIONS = Set.of("--run", "--baseline", "--output", "--thread-param",
+            "--alpha", "--threshold", "--store");
+    private static final Set<String> COMPARE_OPTIONS = Set.of("--baseline", "--candidate", "--alpha", "--threshold",
+            "--store");
+
+    public static void main(String... argv) throws RunnerException, IOException {
+        try {
+            String command = argv.length > 0 && !argv[0].startsWith("-") ? argv[0] : "run";
+            String[] rest = argv.length > 0 && !argv[0].startsWith("-") ? Arrays.copyOfRange(argv, 1, argv.length) : argv;
+            Args args = new Args(rest, FLAGS, ALIASES);
+            if (args.has("--help") || command.equals("help")) {
+                System.out.println(USAGE);
+                return;
+            }
+            switch (command) {
+                case "run":
+                    run(args);
+                    break;
+                case "scale":
+                    scale(args);
+                    break;
+                case "adaptive":
+                    adaptive(args);
+                    break;
+                case "matrix":
+                    matrix(args);
+                    break;
+                case "parallel":
+                    if (parallel(args) > 0) {
+                        System.exit(1);
+                    }
+                    break;
+                case "list":
+                    list(args);
+                    break;
+                case "runs":
+                    runs(args);
+                    break;
+                case "report":
+                    report(args);
+                    break;
+                case "compare":
+                    if (compare(args) > 0) {
+                        System.exit(1);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command " + command);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println();
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+    }
+
+    static Collection<RunResult> run(Args args) throws RunnerException, IOException {
+        args.requireKnown(RUN_OPTIONS);
+        ResultFormatType format = format(args);
+        Suite suite = new Suite();
+        Collection<Set<String>> groups = suite.byForkArgs(select(args, suite));
+        ResultStore.Run stored = store(args).create(args.get("--label", null), String.join(" ", args.raw()), environment());
+        Collection<RunResult> results = new ArrayList<>();
+        for (Set<String> group : groups) {
+            results.addAll(new Runner(options(args, group).build()).run());
+        }
+        save(args, stored, format, results);
+        return results;
+    }
+
+    private static void scale(Args args) throws RunnerException, IOException {
+        args.requireKnown(SCALE_OPTIONS);
+        ResultFormatType format = format(args);
+        Suite suite = new Suite();
+        Collection<Set<String>> groups = suite.byForkArgs(select(args, suite));
+        int maxThreads = args.has("--max-threads") ? args.getInt("--max-threads") : Runtime.getRuntime().availableProcessors();
+        ScalingSweep sweep = new ScalingSweep(args.get("--thread-param", null), ScalingSweep.powersOfTwo(maxThreads));
+        ResultStore.Run stored = store(args).create(args.get("--label", null), "scale " + String.join(" ", args.raw()),
+                environment());
+        Collection<RunResult> results = new ArrayList<>();
+        for (Set<String> group : groups) {
+            results.addAll(sweep.run(options(args, group)));
+        }
+        save(args, stored, format, results);
+        sweep.report(results, System.out);
+    }
+
+    /**
+     * Captures the machine state for the store and prints what is likely to add noise before the run starts.
+     */
+    private static Environment environment() {
+        Environment environment = Environment.capture();
+        for (String warning : environment.warnings()) {
+            System.err.println("WARNING: " + warning);
+        }
+        return environment;
+    }
+
+    private static void matrix(Args args) throws RunnerException, IOException {
+        args.requireKnown(MATRIX_OPTIONS);
+        ResultFormatType format = format(args);
+        Suite suite = new Suite();
+        Collection<Set<String>> groups = suite.byForkArgs(select(args, suite));
+        boolean axes = args.has("--gc") || args.has("--heap") || args.has("--compressed-oops") || args.has("--large-pages");
+        ConfigMatrix matrix = new ConfigMatrix(list(args.get("--gc", axes ? "" : "g1,parallel,serial,zgc,epsilon")),
+                list(args.get("--heap", "")), list(args.get("--compressed-oops", "")), list(args.get("--large-pages", "")));
+        ResultStore.Run stored = store(args).create(args.get("--label", null), "matrix " + String.join(" ", args.raw()),
+                environment());
+        Map<ConfigMatrix.Config, Collection<RunResult>> results = matrix.run(groups.stream()
+                .map(group -> options(args, group).build()).collect(Collectors.toList()));
+        save(args, stored, format, results.values().stream().flatMap(Collection::stream).collect(Collectors.toList()));
+        matrix.report(results, System.out);
+    }
+
+    /**
+     * Returns the number of re-run benchmarks that differ from their concurrent result.
+     */
+    private static int parallel(Args args) throws IOException {
+        args.requireKnown(PARALLEL_OPTIONS);
+        ResultFormatType format = format(args);
+        Suite suite = new Suite();
+        Set<String> benchmarks = select(args, suite);
+        int coresPerSlot = args.has("--cores-per-slot") ? args.getInt("--cores-per-slot") : 2;
+        int reserve = args.has("--reserve") ? args.getInt("--reserve") : 1;
+        int maxSlots = args.has("--slots") ? args.getInt("--slots") : Integer.MAX_VALUE;
+        double verify = Double.parseDouble(args.get("--verify", "0.1"));
+        double alpha = Double.parseDouble(args.get("--alpha", "0.05"));
+        double threshold = Double.parseDouble(args.get("--threshold", "0.02"));
+        ResultStore.Run stored = store(args).create(args.get("--label", null), "parallel " + String.join(" ", args.raw()),
+                environment());
+        ParallelScheduler scheduler = new ParallelScheduler(CpuSets.partition(coresPerSlot, reserve, maxSlots),
+                args.all("--serial"), args.has("--parallel-io"), stored.directory().resolve("forks"), System.out);
+        Collection<RunResult> results = scheduler.run(suite, benchmarks, params(args),
+                args.has("--threads") ? args.getInt("--threads") : 0, args.has("--forks") ? args.getInt("--forks") : 1,
+                (benchmark, params) -> options(args, Set.of(benchmark), params));
+        save(args, stored, format, results);
+        return scheduler.verify(verify, alpha, threshold);
+    }
+
+    private static List<String> list(String values) {
+        return Arrays.stream(values.split(",")).map(String::trim).filter(value -> !value.isEmpty()).collect(Collectors.toList());
+    }
+
+    private static void adaptive(Args args) throws RunnerException, IOException {
+        args.requireKnown(ADAPTIVE_OPTIONS);
+        ResultFormatType format = format(args);
+        Set<String> benchmarks = select(args);
+        double target = Double.parseDouble(args.get("--target", "0.02"));
+        long budget = TimeValue.fromString(args.get("--budget", "30min")).convertTo(TimeUnit.NANOSECONDS);
+        int maxForks = args.has("--max-forks") ? args.getInt("--max-forks") : 10;
+        int warmup = args.has("--warmup-iterations") ? args.getInt("--warmup-iterations") : 2;
+        int iterations = args.has("--iterations") ? args.getInt("--iterations") : 5;
+        ResultStore.Run stored = store(args).create(args.get("--label", null), "adaptive " + String.join(" ", args.raw()),
+                environment());
+        Collection<RunResult> results = new AdaptiveRunner(target, budget, maxForks, warmup, iterations, System.out)
+                .run(benchmarks, benchmark -> options(args, Set.of(benchmark)));
+        save(args, stored, format, results);
+    }
+
+    private static ResultFormatType format(Args args) {
+        ResultFormatType format = args.has("--format")
+                ? ResultFormatType.valueOf(args.get("--format", null).toUpperCase())
+                : null;
+        if (format == null && args.has("--output")) {
+            throw new IllegalArgumentException("--output needs --format");
+        }
+        return format;
+    }
+
+    private static ChainedOptionsBuilder options(Args args, Set<String> benchmarks) {
+        return options(args, benchmarks, params(args));
+    }
+
+    private static ChainedOptionsBuilder options(Args args, Set<String> benchmarks, Map<String, String[]> params) {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .forks(1)
+                .warmupMode(WarmupMode.BULK)
+                .warmupIterations(2);
+        for (String benchmark : benchmarks) {
+            options.include("^" + Pattern.quote(benchmark) + "$");
+        }
+        params.forEach(options::param);
+        if (args.has("--forks")) {
+            options.forks(args.getInt("--forks"));
+        }
+        if (args.has("--threads")) {
+            options.threads(args.getInt("--threads"));
+        }
+        if (args.has("--warmup-iterations")) {
+            options.warmupIterations(args.getInt("--warmup-iterations"));
+        }
+        if (args.has("--iterations")) {
+            options.measurementIterations(args.getInt("--iterations"));
+        }
+        if (args.has("--warmup-time")) {
+            options.warmupTime(TimeValue.fromString(args.get("--warmup-time", null)));
+        }
+        if (args.has("--time")) {
+            options.measurementTime(TimeValue.fromString(args.get("--time", null)));
+        }
+        if (args.has("--mode")) {
+            options.mode(Mode.deepValueOf(args.get("--mode", null)));
+        }
+        // jvmArgsAppend would replace the benchmarks' @Fork(jvmArgsAppend), so pass those on first
+        List<String> forkArgs = new ArrayList<>(new Suite().forkArgsOf(benchmarks));
+        if (args.has("--jvm-args-append")) {
+            forkArgs.addAll(Arrays.asList(args.get("--jvm-args-append", null).trim().split("\\s+")));
+        }
+        if (!forkArgs.isEmpty()) {
+            options.jvmArgsAppend(forkArgs.toArray(new String[0]));
+        }
+        boolean gc = false;
+        boolean jit = false;
+        boolean latency = false;
+        for (String profiler : args.all("--profiler")) {
+            int colon = profiler.indexOf(':');
+            String name = colon > 0 ? profiler.substring(0, colon) : profiler;
+            name = PROFILER_ALIASES.getOrDefault(name, name);
+            gc |= name.equals("gc") || name.equals(GCProfiler.class.getName());
+            jit |= name.equals(JitProfiler.class.getName());
+            latency |= name.equals(LatencyProfiler.class.getName());
+            if (colon > 0) {
+                options.addProfiler(name, profiler.substring(colon + 1));
+            } else {
+                options.addProfiler(name);
+            }
+        }
+        if (jit) {
+            // profilers are not called during bulk warmup, and the warmup compiles are what jit is after
+            options.warmupMode(WarmupMode.INDI);
+        }
+        if (!gc) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!latency) {
+            options.addProfiler(LatencyProfiler.class);
+        }
+        return options;
+    }
+
+    private static Map<String, String[]> params(Args args) {
+        Map<String, String[]> params = new LinkedHashMap<>();
+        for (String param : args.all("--param")) {
+            int equals = param.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("--param expects name=v1,v2 but was " + param);
+            }
+            params.put(param.substring(0, equals), param.substring(equals + 1).split(","));
+        }
+        return params;
+    }
+
+    private static void save(Args args, ResultStore.Run stored, ResultFormatType format, Collection<RunResult> results)
+            throws IOException {
+        stored.addEnvironment(Environment.forks(results.stream().map(result -> result.getParams().getJvmArgs())
+                .collect(Collectors.toList())));
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, stored.resultFile().toString()).writeOut(results);
+        System.out.println("Stored run " + stored.id() + " in " + stored.directory());
+        if (format != null) {
+            String output = args.get("--output", "jmh-result." + format.name().toLowerCase());
+            ResultFormatFactory.getInstance(format, output).writeOut(results);
+        }
+    }
+
+    private static void list(Args args) {
+        args.requireKnown(SELECTION_OPTIONS);
+        Suite suite = new Suite();
+        for (String benchmark : select(args, suite)) {
+            String tags = String.join(",", Suite.tagsOf(suite.classOf(benchmark)));
+            System.out.println(tags.isEmpty() ? benchmark : benchmark + "  [" + tags + "]");
+        }
+    }
+
+    private static void runs(Args args) throws IOException {
+        args.requireKnown(Set.of("--store"));
+        for (ResultStore.Run run : store(args).runs()) {
+            Properties metadata = run.metadata();
+            System.out.printf("%s  %-16s %-20s %s%n", run.id(), run.label(), metadata.getProperty("host"),
+                    metadata.getProperty("command"));
+        }
+    }
+
+    private static void report(Args args) throws IOException {
+        args.requireKnown(REPORT_OPTIONS);
+        ResultStore store = store(args);
+        ResultStore.Run run = store.find(args.get("--run", "latest"));
+        ResultStore.Run baseline = args.has("--baseline") ? store.find(args.get("--baseline", null)) : null;
+        String threadParam = args.get("--thread-param", threadParamOf(run));
+        double alpha = Double.parseDouble(args.get("--alpha", "0.05"));
+        double threshold = Double.parseDouble(args.get("--threshold", "0.02"));
+        Path output = Paths.get(args.get("--output", "report-" + run.id() + ".html"));
+        new Report(run, baseline, threadParam, alpha, threshold).write(output);
+        System.out.println("Wrote " + output.toAbsolutePath());
+    }
+
+    /**
+     * The {@code --thread-param} a stored {@code scale} run was started with, if any.
+     */
+    private static String threadParamOf(ResultStore.Run run) {
+        List<String> command = Arrays.asList(run.metadata().getProperty("command", "").split(" "));
+        int index = command.indexOf("--thread-param");
+        return index >= 0 && index + 1 < command.size() ? command.get(index + 1) : null;
+    }
+
+    private static int compare(Args args) throws IOException {
+        args.requireKnown(COMPARE_OPTIONS);
+        if (!args.has("--baseline")) {
+            throw new IllegalArgumentException("compare needs --baseline");
+        }
+        ResultStore store = store(args);
+        ResultStore.Run baseline = store.find(args.get("--baseline", null));
+        ResultStore.Run candidate = store.find(args.get("--candidate", "latest"));
+        double alpha = Double.parseDouble(args.get("--alpha", "0.05"));
+        double threshold = Double.parseDouble(args.get("--threshold", "0.02"));
+        return new Comparison(baseline, candidate, alpha, threshold).print(System.out);
+    }
+
+    private static ResultStore store(Args args) {
+        return new ResultStore(Paths.get(args.get("--store", ResultStore.DEFAULT_DIRECTORY)));
+    }
+
+    private static Set<String> select(Args args) {
+        return select(args, new Suite());
+    }
+
+    private static Set<String> select(Args args, Suite suite) {
+        Set<String> benchmarks = suite.select(args.all("--package"), args.all("--tag"), args.all("--include"),
+                args.all("--exclude"));
+        if (benchmarks.isEmpty()) {
+            throw new IllegalArgumentException("No benchmarks match the selection");
+        }
+        return benchmarks;
+    }
+}
@@ -0,0 +1,369 @@
+package tool;
+
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the selection as independent forks, one per benchmark, parameter combination and fork number, each in its own
+ * launcher JVM pinned to a {@link CpuSets} slot, as many at a time as there are slots. Only forks with a single
+ * benchmark thread run concurrently: JMH threads or thread groups above one, classes tagged {@code concurrency}
+ * (they start their own threads), disk-bound classes unless {@code parallelIo} (they all use the device and page
+ * cache under {@code java.io.tmpdir}) and benchmarks matching a {@code --serial} regex run afterwards one at a time,
+ * unpinned. The forks of a benchmark are merged back into one result, as if JMH had run them in sequence.
+ * <p>
+ * Slots do not share cores, but they do share the last level cache and memory bandwidth, so
+ * {@link #verify} re-runs a sample of the concurrent benchmarks alone on one slot and tests each against its
+ * concurrent result: a significant change beyond the threshold means the neighbours interfered.
+ * <p>
+ * The gain therefore depends on the tags. Every class of this suite carries a disk or {@code concurrency} tag, so
+ * without {@code parallelIo} the whole selection runs serially; with it, the single-threaded forks of the disk
+ * classes without a {@code concurrency} tag, such as {@code FileChannelJmh}, run concurrently and trade a shared
+ * device and page cache for wall time, while queue benchmarks such as {@code RingBufferJmh} stay serial.
+ */
+class ParallelScheduler {
+
+    private static final String SEPARATE_THREADS_TAG = "concurrency";
+    private static final Set<String> DISK_TAGS = Set.of("read", "write", "transfer", "durability", "mmap");
+
+    private final List<CpuSets.Slot> slots;
+    private final List<Pattern> serial;
+    private final boolean parallelIo;
+    private final Path logs;
+    private final PrintStream out;
+    private final List<Unit> units = new ArrayList<>();
+    private final AtomicInteger started = new AtomicInteger();
+
+    ParallelScheduler(List<CpuSets.Slot> slots, List<String> serial, boolean parallelIo, Path logs, PrintStream out) {
+        this.slots = slots;
+        this.serial = serial.stream().map(Pattern::compile).collect(Collectors.toList());
+        this.parallelIo = parallelIo;
+        this.logs = logs;
+        this.out = out;
+    }
+
+    /**
+     * {@code options} gives a fresh builder for one benchmark with the given parameter values; {@code threads} is the
+     * {@code --threads} override or 0.
+     */
+    Collection<RunResult> run(Suite suite, Set<String> benchmarks, Map<String, String[]> params, int threads, int forks,
+                              BiFunction<String, Map<String, String[]>, ChainedOptionsBuilder> options) throws IOException {
+        for (String benchmark : benchmarks) {
+            BenchmarkListEntry entry = suite.entryOf(benchmark);
+            List<String> tags = Suite.tagsOf(suite.classOf(benchmark));
+            boolean concurrent = threads(entry, threads) == 1
+                    && !tags.contains(SEPARATE_THREADS_TAG)
+                    && (parallelIo || tags.stream().noneMatch(DISK_TAGS::contains))
+                    && serial.stream().noneMatch(regex -> regex.matcher(benchmark).find());
+            for (Map<String, String> combination : combinations(entry, params)) {
+                Map<String, String[]> single = new TreeMap<>();
+                combination.forEach((name, value) -> single.put(name, new String[] { value }));
+                for (int fork = 1; fork <= Math.max(forks, 1); fork++) {
+                    Options built = options.apply(benchmark, single).forks(Math.min(forks, 1)).build();
+                    units.add(new Unit(benchmark, combination, fork, concurrent, built));
+                }
+            }
+        }
+        Files.createDirectories(logs);
+        List<Unit> concurrent = units.stream().filter(unit -> unit.concurrent).collect(Collectors.toList());
+        out.printf("# parallel: %d forks on %d slots, %d forks serially afterwards%n", concurrent.size(), slots.size(),
+                units.size() - concurrent.size());
+        slots.forEach(slot -> out.println("#   " + slot));
+        try {
+            BlockingQueue<CpuSets.Slot> free = new LinkedBlockingQueue<>(slots);
+            ExecutorService executor = Executors.newFixedThreadPool(slots.size());
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (Unit unit : concurrent) {
+                    futures.add(executor.submit(() -> {
+                        CpuSets.Slot slot = free.take();
+                        try {
+                            unit.results = fork(unit, slot.pin(), slot.toString());
+                        } finally {
+                            free.add(slot);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+            for (Unit unit : units) {
+                if (!unit.concurrent) {
+                    unit.results = fork(unit, Collections.emptyList(), "all cpus");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for forks");
+        }
+        return merge(units);
+    }
+
+    /**
+     * Re-runs every fork of about {@code fraction} of the concurrently run benchmark/params combinations, spread over
+     * the selection, alone on the first slot, and compares the iteration scores by Welch's t-test. Returns the number
+     * of combinations that changed by more than {@code threshold} at significance {@code alpha}.
+     */
+    int verify(double fraction, double alpha, double threshold) throws IOException {
+        Map<String, List<Unit>> byCombination = new LinkedHashMap<>();
+        for (Unit unit : units) {
+            if (unit.concurrent) {
+                byCombination.computeIfAbsent(unit.benchmark + unit.params, key -> new ArrayList<>()).add(unit);
+            }
+        }
+        if (fraction <= 0 || byCombination.isEmpty()) {
+            return 0;
+        }
+        if (slots.size() < 2) {
+            out.println("# parallel: a single slot ran the forks one at a time, nothing to verify");
+            return 0;
+        }
+        List<List<Unit>> combinations = new ArrayList<>(byCombination.values());
+        int count = Math.min(combinations.size(), Math.max(1, (int) Math.round(fraction * combinations.size())));
+        List<Unit> parallel = new ArrayList<>();
+        List<Unit> alone = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                for (Unit unit : combinations.get(i * combinations.size() / count)) {
+                    Unit rerun = new Unit(unit.benchmark, unit.params, unit.fork, false, unit.options);
+                    rerun.results = fork(rerun, slots.get(0).pin(), slots.get(0) + ", alone");
+                    parallel.add(unit);
+                    alone.add(rerun);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for forks");
+        }
+        Map<String, RunResult> concurrentResults = index(merge(parallel));
+        int interfered = 0;
+        out.printf("%n%-90s %12s %12s %8s %8s  %s%n", "Benchmark (re-run alone vs concurrent)", "alone", "concurrent",
+                "change", "p", "Verdict");
+        for (Map.Entry<String, RunResult> entry : index(merge(alone)).entrySet()) {
+            RunResult concurrent = concurrentResults.get(entry.getKey());
+            if (concurrent == null) {
+                continue;
+            }
+            Stats.Sample baseline = scores(entry.getValue());
+            Stats.Sample candidate = scores(concurrent);
+            Stats.Welch welch = new Stats.Welch(baseline, candidate, 1 - alpha);
+            double change = welch.difference / baseline.mean();
+            boolean changed = welch.p < alpha && Math.abs(change) > threshold;
+            interfered += changed ? 1 : 0;
+            out.printf("%-90s %12.6g %12.6g %+7.2f%% %8.4f  %s%n", entry.getKey(), baseline.mean(), candidate.mean(),
+                    change * 100, welch.p, changed ? "INTERFERENCE" : "ok");
+        }
+        if (interfered > 0) {
+            out.printf("WARNING: %d of %d re-run benchmarks differ when run next to others; use fewer --slots, more "
+                    + "--cores-per-slot, or --serial for them%n", interfered, concurrentResults.size());
+        }
+        return interfered;
+    }
+
+    /**
+     * Entry point of the pinned launcher JVM: reads the serialized {@link Options}, runs them, and writes the results.
+     */
+    public static void main(String... argv) throws Exception {
+        Options options;
+        try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(Paths.get(argv[0])))) {
+            options = (Options) in.readObject();
+        }
+        Collection<RunResult> results = new Runner(options).run();
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(Paths.get(argv[1])))) {
+            out.writeObject(new ArrayList<>(results));
+        }
+    }
+
+    /**
+     * Runs one unit in a launcher JVM behind the {@code pin} command, with the host's JVM flags (forks inherit them)
+     * and JMH's single-instance lock off; output goes to a log per fork. A failed fork is reported and left out.
+     */
+    private List<RunResult> fork(Unit unit, List<String> pin, String where) throws IOException, InterruptedException {
+        int number = started.incrementAndGet();
+        Path optionsFile = Files.createTempFile("jmh-fork", ".options");
+        Path resultFile = Files.createTempFile("jmh-fork", ".results");
+        Path log = logs.resolve(String.format("%04d.log", number));
+        try {
+            return fork(unit, pin, where, number, optionsFile, resultFile, log);
+        } finally {
+            Files.deleteIfExists(optionsFile);
+            Files.deleteIfExists(resultFile);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<RunResult> fork(Unit unit, List<String> pin, String where, int number, Path optionsFile, Path resultFile,
+                                 Path log) throws IOException, InterruptedException {
+        try (ObjectOutputStream objects = new ObjectOutputStream(Files.newOutputStream(optionsFile))) {
+            objects.writeObject(unit.options);
+        }
+        List<String> command = new ArrayList<>(pin);
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(flag -> !flag.startsWith("-agentlib:jdwp") && !flag.startsWith("-Xdebug"))
+                .forEach(command::add);
+        command.addAll(List.of("-Djmh.ignoreLock=true", "-cp", System.getProperty("java.class.path"),
+                ParallelScheduler.class.getName(), optionsFile.toString(), resultFile.toString()));
+        out.printf("# parallel [%d] %s on %s%n", number, unit, where);
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        int exit;
+        try {
+            exit = process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+        if (exit != 0 || Files.size(resultFile) == 0) {
+            out.printf("# parallel [%d] %s failed with exit code %d, see %s%n", number, unit, exit, log);
+            return Collections.emptyList();
+        }
+        try (ObjectInputStream objects = new ObjectInputStream(Files.newInputStream(resultFile))) {
+            List<RunResult> results = (List<RunResult>) objects.readObject();
+            out.printf("# parallel [%d] %s done in %.0f s: %s%n", number, unit, (System.nanoTime() - start) / 1e9,
+                    results.stream().map(result -> String.format("%.6g %s", result.getPrimaryResult().getScore(),
+                            result.getPrimaryResult().getScoreUnit())).collect(Collectors.joining(", ")));
+            return results;
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static int threads(BenchmarkListEntry entry, int override) {
+        int groups = Arrays.stream(entry.getThreadGroups()).sum();
+        if (groups > 1) {
+            return groups;
+        }
+        return override != 0 ? override : entry.getThreads().orElse(1);
+    }
+
+    /**
+     * Cartesian product of the benchmark's {@code @Param} values, with {@code --param} replacing a parameter's values.
+     */
+    private static List<Map<String, String>> combinations(BenchmarkListEntry entry, Map<String, String[]> overrides) {
+        List<Map<String, String>> combinations = new ArrayList<>();
+        combinations.add(new TreeMap<>());
+        Map<String, String[]> params = new TreeMap<>(entry.getParams().orElse(Collections.emptyMap()));
+        for (Map.Entry<String, String[]> param : params.entrySet()) {
+            String[] values = overrides.getOrDefault(param.getKey(), param.getValue());
+            List<Map<String, String>> expanded = new ArrayList<>();
+            for (Map<String, String> combination : combinations) {
+                for (String value : values) {
+                    Map<String, String> next = new TreeMap<>(combination);
+                    next.put(param.getKey(), value);
+                    expanded.add(next);
+                }
+            }
+            combinations = expanded;
+        }
+        return combinations;
+    }
+
+    /**
+     * One result per benchmark, params and mode holding the benchmark results of all its forks, in selection order.
+     */
+    private static List<RunResult> merge(List<Unit> units) {
+        Map<String, List<RunResult>> byKey = new LinkedHashMap<>();
+        for (Unit unit : units) {
+            for (RunResult result : unit.results) {
+                byKey.computeIfAbsent(key(result), key -> new ArrayList<>()).add(result);
+            }
+        }
+        List<RunResult> merged = new ArrayList<>();
+        for (List<RunResult> results : byKey.values()) {
+            List<BenchmarkResult> forks = results.stream().flatMap(result -> result.getBenchmarkResults().stream())
+                    .collect(Collectors.toList());
+            merged.add(new RunResult(results.get(0).getParams(), forks));
+        }
+        merged.sort(Comparator.comparing(ParallelScheduler::key));
+        return merged;
+    }
+
+    private static Map<String, RunResult> index(List<RunResult> results) {
+        Map<String, RunResult> byKey = new LinkedHashMap<>();
+        results.forEach(result -> byKey.put(key(result), result));
+        return byKey;
+    }
+
+    private static String key(RunResult result) {
+        Map<String, String> params = new TreeMap<>();
+        for (String key : result.getParams().getParamsKeys()) {
+            params.put(key, result.getParams().getParam(key));
+        }
+        return result.getParams().getBenchmark() + (params.isEmpty() ? "" : params.toString()) + " "
+                + result.getParams().getMode().shortLabel();
+    }
+
+    private static Stats.Sample scores(RunResult result) {
+        return new Stats.Sample(result.getBenchmarkResults().stream()
+                .flatMap(fork -> fork.getIterationResults().stream())
+                .mapToDouble(iteration -> iteration.getPrimaryResult().getScore())
+                .toArray());
+    }
+
+    /**
+     * One fork of one benchmark with one value per parameter.
+     */
+    private static final class Unit {
+
+        private final String benchmark;
+        private final Map<String, String> params;
+        private final int fork;
+        private final boolean concurrent;
+        private final Options options;
+        private List<RunResult> results = Collections.emptyList();
+
+        private Unit(String benchmark, Map<String, String> params, int fork, boolean concurrent, Options options) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.fork = fork;
+            this.concurrent = concurrent;
+            this.options = options;
+        }
+
+        @Override
+        public String toString() {
+            String name = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+            return name + (params.isEmpty() ? "" : params.toString()) + " fork " + fork;
+        }
+    }
+}
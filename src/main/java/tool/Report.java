@@ -0,0 +1,377 @@
+package tool;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Renders a stored run as one self-contained HTML page: metadata, a result table, percentile spectra of
+ * {@code sample} mode latencies, score against every {@code @Param} that has more than one value, throughput against
+ * concurrency with an {@link Usl} fit, and, given a baseline, the {@link Comparison} of both runs as a table and a
+ * chart. The charts are inline SVG and the page loads nothing else, so it can be mailed or attached as is.
+ */
+class Report {
+
+    private static final String STYLE = String.join("\n",
+            "body { font-family: sans-serif; font-size: 13px; margin: 24px; color: #222; }",
+            "h2 { margin-top: 32px; border-bottom: 1px solid #ccc; }",
+            "table { border-collapse: collapse; margin: 8px 0; }",
+            "th, td { padding: 3px 8px; border-bottom: 1px solid #eee; text-align: left; }",
+            "td.n { text-align: right; font-variant-numeric: tabular-nums; }",
+            ".IMPROVED { color: #2ca02c; font-weight: bold; } .REGRESSED { color: #d62728; font-weight: bold; }",
+            "svg { display: block; margin: 12px 0; }");
+
+    private final ResultStore.Run run;
+    private final ResultStore.Run baseline;
+    private final String threadParam;
+    private final double alpha;
+    private final double threshold;
+
+    Report(ResultStore.Run run, ResultStore.Run baseline, String threadParam, double alpha, double threshold) {
+        this.run = run;
+        this.baseline = baseline;
+        this.threadParam = threadParam;
+        this.alpha = alpha;
+        this.threshold = threshold;
+    }
+
+    void write(Path file) throws IOException {
+        List<Map<String, Object>> results = run.results();
+        StringBuilder html = new StringBuilder();
+        String title = "JMH run " + run.id() + (run.label().isEmpty() ? "" : " (" + run.label() + ")");
+        html.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>").append(escape(title))
+                .append("</title><style>\n").append(STYLE).append("\n</style></head><body>\n");
+        html.append("<h1>").append(escape(title)).append("</h1>\n");
+        metadata(html);
+        if (baseline != null) {
+            comparison(html);
+        }
+        summary(html, results);
+        percentiles(html, results);
+        parameters(html, results);
+        scaling(html, results);
+        html.append("</body></html>\n");
+        Files.write(file, html.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void metadata(StringBuilder html) {
+        String warnings = run.metadata().getProperty("warnings", "");
+        if (!warnings.isEmpty()) {
+            html.append("<p>Noise warnings for this machine:</p>\n<ul>\n");
+            for (String warning : warnings.split(" \\| ")) {
+                html.append("<li class=\"REGRESSED\">").append(escape(warning)).append("</li>\n");
+            }
+            html.append("</ul>\n");
+        }
+        html.append("<table>\n");
+        for (String key : new TreeSet<>(run.metadata().stringPropertyNames())) {
+            html.append("<tr><th>").append(escape(key)).append("</th><td>")
+                    .append(escape(run.metadata().getProperty(key))).append("</td></tr>\n");
+        }
+        html.append("</table>\n");
+    }
+
+    private void comparison(StringBuilder html) throws IOException {
+        List<String> unmatched = new ArrayList<>();
+        Comparison comparison = new Comparison(baseline, run, alpha, threshold);
+        List<Comparison.Row> rows = comparison.rows(unmatched);
+        html.append(String.format(Locale.ROOT, "<h2>Against baseline %s %s</h2>%n<p>alpha %.3f, threshold %.1f%%, "
+                        + "%.0f%% confidence intervals; a change needs both Welch and Mann-Whitney below alpha.</p>%n",
+                escape(baseline.id()), escape(baseline.label()), alpha, threshold * 100, (1 - alpha) * 100));
+        for (String change : comparison.environmentChanges()) {
+            html.append("<p class=\"REGRESSED\">environment changed: ").append(escape(change)).append("</p>\n");
+        }
+        if (!rows.isEmpty()) {
+            List<String> labels = new ArrayList<>();
+            List<String> verdicts = new ArrayList<>();
+            double[] change = new double[rows.size()];
+            double[] low = new double[rows.size()];
+            double[] high = new double[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                Comparison.Row row = rows.get(i);
+                labels.add((shortName(row.name) + " " + row.config).trim() + " " + row.mode
+                        + (row.threads == 1 ? "" : " " + row.threads + "t"));
+                verdicts.add(row.verdict);
+                change[i] = row.change;
+                low[i] = row.low;
+                high[i] = row.high;
+            }
+            html.append(Chart.changes("Change of the mean against the baseline", labels, change, low, high, verdicts)).append('\n');
+        }
+        html.append("<table>\n<tr><th>Benchmark</th><th>Config</th><th>Mode</th><th>Threads</th><th>Baseline</th>"
+                + "<th>Candidate</th><th>Units</th><th>Change</th><th>CI</th><th>p(Welch)</th><th>p(MW)</th><th>Cliff's &delta;</th><th>Verdict</th></tr>\n");
+        for (Comparison.Row row : rows) {
+            html.append(String.format(Locale.ROOT, "<tr><td>%s</td><td>%s</td><td>%s</td><td class=\"n\">%d</td>"
+                            + "<td class=\"n\">%.6g</td><td class=\"n\">%.6g</td><td>%s</td><td class=\"n\">%+.2f%%</td>"
+                            + "<td class=\"n\">[%+.2f%%, %+.2f%%]</td><td class=\"n\">%.4f</td><td class=\"n\">%.4f</td>"
+                            + "<td class=\"n\">%+.3f</td><td class=\"%s\">%s</td></tr>%n", escape(row.name),
+                    escape(row.config), row.mode, row.threads, row.baseline, row.candidate, escape(row.unit),
+                    row.change * 100, row.low * 100, row.high * 100, row.welchP, row.mannWhitneyP, row.cliffsDelta,
+                    row.verdict, row.verdict));
+        }
+        html.append("</table>\n");
+        for (String key : unmatched) {
+            html.append("<p>not comparable: ").append(escape(key)).append("</p>\n");
+        }
+    }
+
+    private static void summary(StringBuilder html, List<Map<String, Object>> results) {
+        Set<String> common = Comparison.commonJvmArgs(results);
+        html.append("<h2>Results</h2>\n<table>\n<tr><th>Benchmark</th><th>Params</th><th>Config</th><th>Mode</th>"
+                + "<th>Threads</th><th>Forks</th><th>Score</th><th>Error</th><th>Units</th><th>p50</th><th>p99</th><th>p99.9</th>"
+                + "<th>max</th></tr>\n");
+        for (Map<String, Object> result : results) {
+            Map<String, Object> metric = Json.object(result.get("primaryMetric"));
+            html.append(String.format(Locale.ROOT, "<tr><td>%s</td><td>%s</td><td>%s</td><td>%s</td>"
+                            + "<td class=\"n\">%.0f</td><td class=\"n\">%.0f</td><td class=\"n\">%s</td>"
+                            + "<td class=\"n\">%s</td><td>%s</td>",
+                    escape(shortName((String) result.get("benchmark"))), escape(params(result, null)),
+                    escape(Comparison.config(result, common)), result.get("mode"),
+                    Json.number(result.get("threads")), Json.number(result.get("forks")),
+                    Chart.number(Json.number(metric.get("score"))), Chart.number(Json.number(metric.get("scoreError"))),
+                    escape((String) metric.get("scoreUnit"))));
+            Object percentiles = metric.get("scorePercentiles");
+            for (String percentile : new String[] { "50.0", "99.0", "99.9", "100.0" }) {
+                Object value = "sample".equals(result.get("mode")) && percentiles != null
+                        ? Json.object(percentiles).get(percentile)
+                        : null;
+                html.append("<td class=\"n\">").append(value == null ? "" : Chart.number(Json.number(value))).append("</td>");
+            }
+            html.append("</tr>\n");
+        }
+        html.append("</table>\n");
+    }
+
+    /**
+     * One chart per benchmark with a line per params combination, JVM configuration and thread count, x being
+     * 1/(1 - percentile) on a log scale as in HdrHistogram plots, up to the resolution the sample count supports.
+     */
+    private void percentiles(StringBuilder html, List<Map<String, Object>> results) throws IOException {
+        Map<String, Map<String, Object>> before = baseline == null ? Map.of() : Comparison.index(baseline.results());
+        Map<String, Chart> charts = new LinkedHashMap<>();
+        Set<String> common = Comparison.commonJvmArgs(results);
+        for (Map.Entry<String, Map<String, Object>> entry : Comparison.index(results).entrySet()) {
+            Map<String, Object> result = entry.getValue();
+            if (!"sample".equals(result.get("mode"))) {
+                continue;
+            }
+            String benchmark = (String) result.get("benchmark");
+            Map<String, Object> metric = Json.object(result.get("primaryMetric"));
+            Chart chart = charts.computeIfAbsent(benchmark, key -> new Chart(shortName(key), "percentile",
+                    "latency (" + metric.get("scoreUnit") + ")").logX(Report::percentileLabel).logY());
+            int threads = Comparison.threads(result);
+            String name = (params(result, null) + " " + Comparison.config(result, common)
+                    + (threads == 1 ? "" : " " + threads + " threads")).trim().replaceAll(" +", " ");
+            name = name.isEmpty() ? "this run" : name;
+            addSpectrum(chart, name, Comparison.histogram(metric), false);
+            if (before.containsKey(entry.getKey())) {
+                addSpectrum(chart, name + " baseline", Comparison.histogram(Json.object(before.get(entry.getKey()).get("primaryMetric"))), true);
+            }
+        }
+        if (!charts.isEmpty()) {
+            html.append("<h2>Latency percentiles</h2>\n<p>Dashed lines are the baseline.</p>\n");
+            charts.values().forEach(chart -> html.append(chart.svg()).append('\n'));
+        }
+    }
+
+    private static void addSpectrum(Chart chart, String name, Stats.Sample sample, boolean dashed) {
+        int points = (int) Math.max(1, Math.floor(10 * Math.log10(Math.max(sample.count(), 1)))) + 1;
+        double[] x = new double[points];
+        double[] fractions = new double[points];
+        for (int k = 0; k < points; k++) {
+            x[k] = Math.pow(10, k / 10.0);
+            fractions[k] = 1 - 1 / x[k];
+        }
+        fractions[points - 1] = 1;
+        double[] y = sample.percentiles(fractions);
+        if (dashed) {
+            chart.dashed(name, x, y);
+        } else {
+            chart.line(name, x, y);
+        }
+    }
+
+    private static String percentileLabel(double inverse) {
+        int nines = (int) Math.round(Math.log10(inverse));
+        if (nines == 0) {
+            return "0%";
+        }
+        StringBuilder label = new StringBuilder("9".repeat(Math.min(nines, 2)));
+        if (nines > 2) {
+            label.append('.').append("9".repeat(nines - 2));
+        }
+        return label.append(nines == 1 ? "0%" : "%").toString();
+    }
+
+    /**
+     * Score against each {@code @Param} that takes several values, one line per combination of the others.
+     */
+    private void parameters(StringBuilder html, List<Map<String, Object>> results) {
+        Map<String, List<Map<String, Object>>> byBenchmark = new LinkedHashMap<>();
+        for (Map<String, Object> result : results) {
+            byBenchmark.computeIfAbsent(result.get("benchmark") + " " + result.get("mode"), key -> new ArrayList<>()).add(result);
+        }
+        List<String> svgs = new ArrayList<>();
+        for (List<Map<String, Object>> group : byBenchmark.values()) {
+            Map<String, TreeSet<String>> values = new TreeMap<>();
+            for (Map<String, Object> result : group) {
+                Object params = result.get("params");
+                if (params != null) {
+                    Json.object(params).forEach((key, value) -> values.computeIfAbsent(key, k -> new TreeSet<>(Report::compareValues)).add((String) value));
+                }
+            }
+            for (Map.Entry<String, TreeSet<String>> param : values.entrySet()) {
+                if (param.getValue().size() < 2 || param.getKey().equals(threadParam)) {
+                    continue;
+                }
+                List<String> categories = new ArrayList<>(param.getValue());
+                Map<String, double[]> lines = new LinkedHashMap<>();
+                for (Map<String, Object> result : group) {
+                    double[] line = lines.computeIfAbsent(params(result, param.getKey()), key -> {
+                        double[] empty = new double[categories.size()];
+                        Arrays.fill(empty, Double.NaN);
+                        return empty;
+                    });
+                    line[categories.indexOf((String) Json.object(result.get("params")).get(param.getKey()))] =
+                            Json.number(Json.object(result.get("primaryMetric")).get("score"));
+                }
+                Map<String, Object> first = group.get(0);
+                Chart chart = new Chart(shortName((String) first.get("benchmark")) + " " + first.get("mode"),
+                        param.getKey(), "score (" + Json.object(first.get("primaryMetric")).get("scoreUnit") + ")")
+                        .categories(categories);
+                double[] positions = new double[categories.size()];
+                Arrays.setAll(positions, i -> i);
+                lines.forEach((name, line) -> chart.line(name.isEmpty() ? "score" : name, positions, line));
+                svgs.add(chart.svg());
+            }
+        }
+        if (!svgs.isEmpty()) {
+            html.append("<h2>Score by parameter</h2>\n");
+            svgs.forEach(svg -> html.append(svg).append('\n'));
+        }
+    }
+
+    /**
+     * Throughput against JMH threads, or against {@code threadParam} when the run swept one, with linear scaling
+     * from the single-thread point and the USL fit when there are enough levels.
+     */
+    private void scaling(StringBuilder html, List<Map<String, Object>> results) {
+        Map<String, TreeMap<Integer, Double>> series = new LinkedHashMap<>();
+        Map<String, String> units = new LinkedHashMap<>();
+        for (Map<String, Object> result : results) {
+            if (!"thrpt".equals(result.get("mode"))) {
+                continue;
+            }
+            Map<String, Object> params = result.get("params") == null ? Map.of() : Json.object(result.get("params"));
+            if (threadParam != null && !params.containsKey(threadParam)) {
+                continue;
+            }
+            int threads = threadParam == null
+                    ? (int) Json.number(result.get("threads"))
+                    : Integer.parseInt((String) params.get(threadParam));
+            String key = shortName((String) result.get("benchmark")) + " " + params(result, threadParam);
+            Map<String, Object> metric = Json.object(result.get("primaryMetric"));
+            series.computeIfAbsent(key.trim(), k -> new TreeMap<>()).put(threads, Json.number(metric.get("score")));
+            units.put(key.trim(), (String) metric.get("scoreUnit"));
+        }
+        StringBuilder section = new StringBuilder();
+        for (Map.Entry<String, TreeMap<Integer, Double>> entry : series.entrySet()) {
+            TreeMap<Integer, Double> points = entry.getValue();
+            if (points.size() < 2) {
+                continue;
+            }
+            double[] threads = points.keySet().stream().mapToDouble(Integer::doubleValue).toArray();
+            double[] throughput = points.values().stream().mapToDouble(Double::doubleValue).toArray();
+            Chart chart = new Chart(entry.getKey(), threadParam == null ? "threads" : threadParam,
+                    "throughput (" + units.get(entry.getKey()) + ")").line("measured", threads, throughput);
+            String fit = "";
+            if (threads[0] == 1) {
+                double[] ideal = new double[threads.length];
+                Arrays.setAll(ideal, i -> throughput[0] * threads[i]);
+                chart.dashed("linear", threads, ideal);
+                if (threads.length >= 3) {
+                    Usl usl = Usl.fit(threads, throughput);
+                    double[] x = new double[50];
+                    double[] y = new double[x.length];
+                    for (int i = 0; i < x.length; i++) {
+                        x[i] = 1 + (threads[threads.length - 1] - 1) * i / (x.length - 1.0);
+                        y[i] = usl.predict(x[i]);
+                    }
+                    chart.line("USL fit", x, y);
+                    fit = String.format(Locale.ROOT, "<p>USL: contention &sigma; = %.5f, coherency &kappa; = %.6f, "
+                                    + "R&sup2; = %.4f, peak at N* = %s</p>%n", usl.sigma, usl.kappa, usl.rSquared,
+                            Double.isInfinite(usl.peak()) ? "none" : String.format(Locale.ROOT, "%.1f", usl.peak()));
+                }
+            }
+            section.append(chart.svg()).append('\n').append(fit);
+        }
+        if (section.length() > 0) {
+            html.append("<h2>Scaling</h2>\n").append(section);
+        }
+    }
+
+    /**
+     * The params of a result without {@code excluded}, or an empty string when there are none.
+     */
+    private static String params(Map<String, Object> result, String excluded) {
+        if (result.get("params") == null) {
+            return "";
+        }
+        Map<String, Object> params = new TreeMap<>(Json.object(result.get("params")));
+        if (excluded != null) {
+            params.remove(excluded);
+        }
+        return params.isEmpty() ? "" : params.toString();
+    }
+
+    private static int compareValues(String a, String b) {
+        try {
+            return Double.compare(Double.parseDouble(a), Double.parseDouble(b));
+        } catch (NumberFormatException e) {
+            return a.compareTo(b);
+        }
+    }
+
+    /**
+     * {@code Class.method} without the package, keeping any params suffix as is.
+     */
+    private static String shortName(String benchmark) {
+        int params = benchmark.indexOf('{');
+        String name = params < 0 ? benchmark : benchmark.substring(0, params);
+        int type = name.lastIndexOf('.', name.lastIndexOf('.') - 1);
+        return name.substring(type + 1) + (params < 0 ? "" : " " + benchmark.substring(params));
+    }
+
+    static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '<':
+                    escaped.append("&lt;");
+                    break;
+                case '>':
+                    escaped.append("&gt;");
+                    break;
+                case '&':
+                    escaped.append("&amp;");
+                    break;
+                case '"':
+                    escaped.append("&quot;");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,175 @@
+package tool;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Append-only directory of benchmark runs. Each run is a subdirectory named after its UTC start time holding the JMH
+ * JSON results and a {@code metadata.properties} with the command line and the {@link Environment} fingerprint
+ * ({@code env.*} keys) and its warnings. The JVM arguments the forks actually ran with are only known afterwards and
+ * are added to the metadata right before the results are written; nothing is rewritten once the results exist, and a
+ * run whose results file never appeared (crashed or interrupted) is ignored.
+ */
+class ResultStore {
+
+    static final String DEFAULT_DIRECTORY = "jmh-results";
+    static final String ENVIRONMENT = "env.";
+    private static final DateTimeFormatter ID_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss").withZone(ZoneOffset.UTC);
+
+    private final Path root;
+
+    ResultStore(Path root) {
+        this.root = root;
+    }
+
+    Run create(String label, String commandLine, Environment environment) throws IOException {
+        Instant now = Instant.now();
+        String id = ID_FORMAT.format(now) + "-" + String.format("%04x", ThreadLocalRandom.current().nextInt(1 << 16));
+        Path directory = Files.createDirectories(root).resolve(id);
+        Files.createDirectory(directory);
+        Properties metadata = new Properties();
+        metadata.setProperty("id", id);
+        metadata.setProperty("timestamp", now.toString());
+        metadata.setProperty("label", label == null ? "" : label);
+        metadata.setProperty("host", hostName());
+        metadata.setProperty("command", commandLine);
+        environment.fingerprint().forEach((key, value) -> metadata.setProperty(ENVIRONMENT + key, value));
+        metadata.setProperty("warnings", String.join(" | ", environment.warnings()));
+        Run run = new Run(directory, metadata);
+        run.writeMetadata();
+        return run;
+    }
+
+    List<Run> runs() throws IOException {
+        List<Run> runs = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return runs;
+        }
+        try (Stream<Path> directories = Files.list(root).sorted()) {
+            for (Path directory : (Iterable<Path>) directories::iterator) {
+                Path metadataFile = directory.resolve("metadata.properties");
+                if (Files.exists(metadataFile) && Files.exists(directory.resolve("results.json"))) {
+                    Properties metadata = new Properties();
+                    try (Reader in = Files.newBufferedReader(metadataFile, StandardCharsets.UTF_8)) {
+                        metadata.load(in);
+                    }
+                    runs.add(new Run(directory, metadata));
+                }
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Resolves {@code latest}, {@code latest~N} (N runs before the latest), a run id or unique id prefix, or a label,
+     * which means the most recent run carrying it.
+     */
+    Run find(String reference) throws IOException {
+        List<Run> runs = runs();
+        if (reference.equals("latest") || reference.startsWith("latest~")) {
+            int back = reference.equals("latest") ? 0 : Integer.parseInt(reference.substring("latest~".length()));
+            if (back >= runs.size()) {
+                throw new IllegalArgumentException("Only " + runs.size() + " runs in " + root);
+            }
+            return runs.get(runs.size() - 1 - back);
+        }
+        List<Run> byPrefix = new ArrayList<>();
+        Run byLabel = null;
+        for (Run run : runs) {
+            if (run.id().equals(reference)) {
+                return run;
+            }
+            if (run.id().startsWith(reference)) {
+                byPrefix.add(run);
+            }
+            if (reference.equals(run.label())) {
+                byLabel = run;
+            }
+        }
+        if (byPrefix.size() > 1) {
+            throw new IllegalArgumentException("Run id prefix " + reference + " is ambiguous");
+        }
+        if (byPrefix.size() == 1) {
+            return byPrefix.get(0);
+        }
+        if (byLabel == null) {
+            throw new IllegalArgumentException("No run matches " + reference + " in " + root);
+        }
+        return byLabel;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    static class Run {
+
+        private final Path directory;
+        private final Properties metadata;
+
+        Run(Path directory, Properties metadata) {
+            this.directory = directory;
+            this.metadata = metadata;
+        }
+
+        String id() {
+            return metadata.getProperty("id");
+        }
+
+        String label() {
+            return metadata.getProperty("label", "");
+        }
+
+        Properties metadata() {
+            return metadata;
+        }
+
+        Path directory() {
+            return directory;
+        }
+
+        /**
+         * Adds fingerprint entries captured after the run, e.g. {@link Environment#forks}, as {@code env.*} keys.
+         */
+        void addEnvironment(Map<String, String> fingerprint) throws IOException {
+            fingerprint.forEach((key, value) -> metadata.setProperty(ENVIRONMENT + key, value));
+            writeMetadata();
+        }
+
+        private void writeMetadata() throws IOException {
+            try (Writer out = Files.newBufferedWriter(directory.resolve("metadata.properties"), StandardCharsets.UTF_8)) {
+                metadata.store(out, null);
+            }
+        }
+
+        Path resultFile() {
+            return directory.resolve("results.json");
+        }
+
+        List<Map<String, Object>> results() throws IOException {
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (Object result : Json.array(Json.parse(Files.readString(resultFile(), StandardCharsets.UTF_8)))) {
+                results.add(Json.object(result));
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package tool;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the same selection in throughput mode at increasing concurrency and fits {@link Usl} and Amdahl to every
+ * benchmark/params series. Concurrency is either JMH's worker thread count, one JMH run per level, or a thread-count
+ * {@code @Param} such as {@code numberOfProducerThreads}, swept within a single run.
+ */
+class ScalingSweep {
+
+    private final String threadParam;
+    private final int[] levels;
+
+    ScalingSweep(String threadParam, int[] levels) {
+        this.threadParam = threadParam;
+        this.levels = levels;
+    }
+
+    /**
+     * 1, 2, 4 .. up to {@code max}, plus {@code max} itself when it is not a power of two.
+     */
+    static int[] powersOfTwo(int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException("--max-threads must be at least 1 but was " + max);
+        }
+        List<Integer> levels = new ArrayList<>();
+        for (int n = 1; n <= max && n > 0; n <<= 1) {
+            levels.add(n);
+        }
+        if (levels.get(levels.size() - 1) != max) {
+            levels.add(max);
+        }
+        return levels.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    Collection<RunResult> run(ChainedOptionsBuilder options) throws RunnerException {
+        options.mode(Mode.Throughput);
+        if (threadParam != null) {
+            String[] values = new String[levels.length];
+            for (int i = 0; i < levels.length; i++) {
+                values[i] = String.valueOf(levels[i]);
+            }
+            return new Runner(options.param(threadParam, values).build()).run();
+        }
+        List<RunResult> results = new ArrayList<>();
+        for (int threads : levels) {
+            results.addAll(new Runner(options.threads(threads).build()).run());
+        }
+        return results;
+    }
+
+    void report(Collection<RunResult> results, PrintStream out) {
+        Map<String, TreeMap<Integer, RunResult>> series = new LinkedHashMap<>();
+        List<String> skipped = new ArrayList<>();
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            Map<String, String> others = new TreeMap<>();
+            for (String key : params.getParamsKeys()) {
+                if (!key.equals(threadParam)) {
+                    others.put(key, params.getParam(key));
+                }
+            }
+            String name = others.isEmpty() ? params.getBenchmark() : params.getBenchmark() + " " + others;
+            if (threadParam != null && params.getParam(threadParam) == null) {
+                skipped.add(name);
+                continue;
+            }
+            int threads = threadParam == null ? params.getThreads() : Integer.parseInt(params.getParam(threadParam));
+            series.computeIfAbsent(name, key -> new TreeMap<>()).put(threads, result);
+        }
+        for (Map.Entry<String, TreeMap<Integer, RunResult>> entry : series.entrySet()) {
+            out.println();
+            print(entry.getKey(), entry.getValue(), out);
+        }
+        for (String name : skipped) {
+            out.printf("%nskipped %s: no @Param %s%n", name, threadParam);
+        }
+    }
+
+    private static void print(String name, TreeMap<Integer, RunResult> points, PrintStream out) {
+        String unit = points.firstEntry().getValue().getPrimaryResult().getScoreUnit();
+        double[] threads = new double[points.size()];
+        double[] throughput = new double[points.size()];
+        int i = 0;
+        for (Map.Entry<Integer, RunResult> point : points.entrySet()) {
+            threads[i] = point.getKey();
+            throughput[i++] = point.getValue().getPrimaryResult().getScore();
+        }
+        out.printf("%s (%s)%n", name, unit);
+        Usl usl = null;
+        if (threads[0] != 1 || threads.length < 2) {
+            out.println("  not fitted: needs the 1-thread point and at least two other levels");
+        } else {
+            Usl amdahl = Usl.amdahl(threads, throughput);
+            out.printf("  Amdahl  sigma=%.5f                 R^2=%.4f  max speedup %s%n", amdahl.sigma,
+                    amdahl.rSquared, format(amdahl.maxSpeedup()));
+            if (threads.length < 3) {
+                out.println("  USL     not fitted: needs at least three levels");
+            } else {
+                usl = Usl.fit(threads, throughput);
+                out.printf("  USL     sigma=%.5f kappa=%.6f  R^2=%.4f  ", usl.sigma, usl.kappa, usl.rSquared);
+                if (Double.isInfinite(usl.peak())) {
+                    out.printf("no peak, max speedup %s%n", format(usl.maxSpeedup()));
+                } else {
+                    out.printf("peak at N*=%.1f, speedup %.2f (%.6g %s)%n", usl.peak(), usl.maxSpeedup(),
+                            usl.predict(Math.max(usl.peak(), 1)), unit);
+                }
+            }
+        }
+        out.printf("  %7s %14s %8s %10s %14s%n", "threads", "throughput", "speedup", "efficiency", "USL");
+        for (int j = 0; j < threads.length; j++) {
+            double speedup = threads[0] == 1 ? throughput[j] / throughput[0] : Double.NaN;
+            out.printf("  %7d %14.6g %8.2f %9.1f%% %14s%n", (int) threads[j], throughput[j], speedup,
+                    100 * speedup / threads[j], usl == null ? "" : String.format("%.6g", usl.predict(threads[j])));
+        }
+    }
+
+    private static String format(double value) {
+        return Double.isInfinite(value) ? "unbounded" : String.format("%.1f", value);
+    }
+}
@@ -0,0 +1,142 @@
+package tool;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.apache.commons.math3.stat.inference.MannWhitneyUTest;
+
+import java.util.Arrays;
+
+/**
+ * Two-sample tests over independent observations such as iteration scores, using the distributions of Apache Commons
+ * Math. A {@link Sample} may also carry weights as repeat counts, so a JMH {@code SampleTime} histogram can be kept
+ * as is for percentiles; the tests expect unit weights.
+ */
+final class Stats {
+
+    private Stats() {
+    }
+
+    static final class Sample {
+
+        final double[] values;
+        final double[] weights;
+
+        Sample(double[] values, double[] weights) {
+            this.values = values;
+            this.weights = weights;
+        }
+
+        Sample(double[] values) {
+            this(values, unitWeights(values.length));
+        }
+
+        private static double[] unitWeights(int length) {
+            double[] weights = new double[length];
+            Arrays.fill(weights, 1);
+            return weights;
+        }
+
+        double count() {
+            return Arrays.stream(weights).sum();
+        }
+
+        double mean() {
+            double sum = 0;
+            for (int i = 0; i < values.length; i++) {
+                sum += values[i] * weights[i];
+            }
+            return sum / count();
+        }
+
+        double variance() {
+            double mean = mean();
+            double sum = 0;
+            for (int i = 0; i < values.length; i++) {
+                sum += weights[i] * (values[i] - mean) * (values[i] - mean);
+            }
+            return sum / (count() - 1);
+        }
+
+        /**
+         * For every fraction, the smallest value with at least that fraction of the total weight at or below it.
+         */
+        double[] percentiles(double... fractions) {
+            Integer[] order = new Integer[values.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+            double total = count();
+            double[] percentiles = new double[fractions.length];
+            for (int f = 0; f < fractions.length; f++) {
+                double cumulative = 0;
+                percentiles[f] = values[order[order.length - 1]];
+                for (int i : order) {
+                    cumulative += weights[i];
+                    if (cumulative >= fractions[f] * total) {
+                        percentiles[f] = values[i];
+                        break;
+                    }
+                }
+            }
+            return percentiles;
+        }
+    }
+
+    /**
+     * Welch's unequal-variance t-test on {@code candidate - baseline}, with a confidence interval for the difference
+     * of means.
+     */
+    static final class Welch {
+
+        final double difference;
+        final double low;
+        final double high;
+        final double p;
+
+        Welch(Sample baseline, Sample candidate, double confidence) {
+            double na = baseline.count();
+            double nb = candidate.count();
+            double va = baseline.variance() / na;
+            double vb = candidate.variance() / nb;
+            double standardError = Math.sqrt(va + vb);
+            double degreesOfFreedom = (va + vb) * (va + vb) / (va * va / (na - 1) + vb * vb / (nb - 1));
+            difference = candidate.mean() - baseline.mean();
+            if (standardError == 0 || Double.isNaN(standardError)) {
+                low = difference;
+                high = difference;
+                p = difference == 0 ? 1 : 0;
+                return;
+            }
+            TDistribution t = new TDistribution(degreesOfFreedom);
+            double margin = t.inverseCumulativeProbability(1 - (1 - confidence) / 2) * standardError;
+            low = difference - margin;
+            high = difference + margin;
+            p = 2 * t.cumulativeProbability(-Math.abs(difference / standardError));
+        }
+    }
+
+    /**
+     * Mann-Whitney U test with the normal approximation, plus Cliff's delta as the effect size:
+     * the probability that a candidate value exceeds a baseline value minus the reverse, in [-1, 1].
+     */
+    static final class MannWhitney {
+
+        final double p;
+        final double cliffsDelta;
+
+        MannWhitney(Sample baseline, Sample candidate) {
+            double dominance = 0;
+            for (double b : candidate.values) {
+                for (double a : baseline.values) {
+                    dominance += Double.compare(b, a) > 0 ? 1 : b == a ? 0 : -1;
+                }
+            }
+            cliffsDelta = dominance / ((double) baseline.values.length * candidate.values.length);
+            p = new MannWhitneyUTest().mannWhitneyUTest(baseline.values, candidate.values);
+        }
+    }
+
+    static double studentQuantile(double probability, double degreesOfFreedom) {
+        return new TDistribution(degreesOfFreedom).inverseCumulativeProbability(probability);
+    }
+}
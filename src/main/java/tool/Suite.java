@@ -0,0 +1,107 @@
+package tool;
+
+import org.openjdk.jmh.runner.BenchmarkList;
+import org.openjdk.jmh.runner.BenchmarkListEntry;
+import org.openjdk.jmh.runner.format.OutputFormatFactory;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * The benchmarks compiled into this build, read from JMH's generated {@code META-INF/BenchmarkList}. Selection is a
+ * union within each kind of selector and an intersection across kinds, so {@code --package io --tag read --tag write}
+ * means "in package io, and tagged read or write".
+ */
+class Suite {
+
+    private final Map<String, String> classOfBenchmark = new TreeMap<>();
+    private final Map<String, BenchmarkListEntry> entryOfBenchmark = new TreeMap<>();
+
+    Suite() {
+        Collection<BenchmarkListEntry> entries = BenchmarkList.defaultList()
+                .getAll(OutputFormatFactory.createFormatInstance(System.out, VerboseMode.SILENT), Collections.emptyList());
+        for (BenchmarkListEntry entry : entries) {
+            classOfBenchmark.put(entry.getUsername(), entry.getUserClassQName());
+            entryOfBenchmark.putIfAbsent(entry.getUsername(), entry);
+        }
+    }
+
+    Set<String> select(List<String> packages, List<String> tags, List<String> includes, List<String> excludes) {
+        Set<String> selected = new LinkedHashSet<>();
+        for (Map.Entry<String, String> benchmark : classOfBenchmark.entrySet()) {
+            String name = benchmark.getKey();
+            String className = benchmark.getValue();
+            if ((packages.isEmpty() || packages.stream().anyMatch(p -> className.startsWith(p + ".")))
+                    && (tags.isEmpty() || tagsOf(className).stream().anyMatch(tags::contains))
+                    && (includes.isEmpty() || includes.stream().anyMatch(regex -> Pattern.compile(regex).matcher(name).find()))
+                    && excludes.stream().noneMatch(regex -> Pattern.compile(regex).matcher(name).find())) {
+                selected.add(name);
+            }
+        }
+        return selected;
+    }
+
+    String classOf(String benchmark) {
+        return classOfBenchmark.get(benchmark);
+    }
+
+    /**
+     * The annotations of a benchmark as JMH compiled them: {@code @Param} values, threads, thread groups.
+     */
+    BenchmarkListEntry entryOf(String benchmark) {
+        return entryOfBenchmark.get(benchmark);
+    }
+
+    /**
+     * {@code benchmarks} grouped by their {@code @Fork(jvmArgsAppend)}. A JMH command line {@code jvmArgsAppend}
+     * replaces the annotation's instead of adding to it, so the launcher runs each group with its own arguments.
+     */
+    Collection<Set<String>> byForkArgs(Set<String> benchmarks) {
+        Map<List<String>, Set<String>> groups = new LinkedHashMap<>();
+        for (String benchmark : benchmarks) {
+            groups.computeIfAbsent(forkArgsOf(benchmark), args -> new LinkedHashSet<>()).add(benchmark);
+        }
+        return groups.values();
+    }
+
+    /**
+     * The {@code @Fork(jvmArgsAppend)} shared by all of {@code benchmarks}, see {@link #byForkArgs}.
+     */
+    List<String> forkArgsOf(Set<String> benchmarks) {
+        List<String> args = null;
+        for (String benchmark : benchmarks) {
+            List<String> own = forkArgsOf(benchmark);
+            if (args != null && !args.equals(own)) {
+                throw new IllegalArgumentException("Benchmarks with different @Fork(jvmArgsAppend) need separate runs: "
+                        + benchmarks);
+            }
+            args = own;
+        }
+        return args == null ? Collections.emptyList() : args;
+    }
+
+    private List<String> forkArgsOf(String benchmark) {
+        BenchmarkListEntry entry = entryOf(benchmark);
+        return entry == null ? Collections.emptyList()
+                : new ArrayList<>(entry.getJvmArgsAppend().orElse(Collections.emptyList()));
+    }
+
+    static List<String> tagsOf(String className) {
+        try {
+            Tag tag = Class.forName(className, false, Suite.class.getClassLoader()).getAnnotation(Tag.class);
+            return tag == null ? Collections.emptyList() : Arrays.asList(tag.value());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package tool;
+
+/**
+ * Gunther's Universal Scalability Law, X(N) = λN / (1 + σ(N - 1) + κN(N - 1)), fitted to throughput measured at
+ * several concurrency levels. σ is the contention (serialised) fraction, κ the coherency cost of keeping shared state
+ * consistent between every pair of threads; with κ = 0 it reduces to Amdahl's law. λ is taken from the single-thread
+ * point, which linearises the model to N·X(1)/X(N) - 1 = σ(N - 1) + κN(N - 1), solved by least squares without an
+ * intercept and with both coefficients kept non-negative.
+ */
+final class Usl {
+
+    final double lambda;
+    final double sigma;
+    final double kappa;
+    final double rSquared;
+
+    private Usl(double lambda, double sigma, double kappa, double[] threads, double[] throughput) {
+        this.lambda = lambda;
+        this.sigma = sigma;
+        this.kappa = kappa;
+        double mean = 0;
+        for (double x : throughput) {
+            mean += x / throughput.length;
+        }
+        double residual = 0;
+        double total = 0;
+        for (int i = 0; i < threads.length; i++) {
+            residual += Math.pow(throughput[i] - predict(threads[i]), 2);
+            total += Math.pow(throughput[i] - mean, 2);
+        }
+        rSquared = total == 0 ? 1 : 1 - residual / total;
+    }
+
+    /**
+     * Needs the single-thread point first and at least three concurrency levels.
+     */
+    static Usl fit(double[] threads, double[] throughput) {
+        double[][] sums = sums(threads, throughput);
+        double xx = sums[0][0];
+        double xz = sums[0][1];
+        double zz = sums[0][2];
+        double xy = sums[1][0];
+        double zy = sums[1][1];
+        double determinant = xx * zz - xz * xz;
+        double sigma = determinant == 0 ? -1 : (xy * zz - zy * xz) / determinant;
+        double kappa = determinant == 0 ? -1 : (zy * xx - xy * xz) / determinant;
+        if (sigma < 0 || kappa < 0) {
+            double kappaOnly = Math.max(zy / zz, 0);
+            double sigmaOnly = Math.max(xy / xx, 0);
+            if (sse(threads, throughput, 0, kappaOnly) < sse(threads, throughput, sigmaOnly, 0)) {
+                sigma = 0;
+                kappa = kappaOnly;
+            } else {
+                sigma = sigmaOnly;
+                kappa = 0;
+            }
+        }
+        return new Usl(throughput[0], sigma, kappa, threads, throughput);
+    }
+
+    /**
+     * The κ = 0 special case; needs the single-thread point first and at least two concurrency levels.
+     */
+    static Usl amdahl(double[] threads, double[] throughput) {
+        double[][] sums = sums(threads, throughput);
+        return new Usl(throughput[0], Math.max(sums[1][0] / sums[0][0], 0), 0, threads, throughput);
+    }
+
+    double predict(double threads) {
+        return lambda * threads / (1 + sigma * (threads - 1) + kappa * threads * (threads - 1));
+    }
+
+    /**
+     * Concurrency with the highest predicted throughput, infinite when there is no coherency penalty.
+     */
+    double peak() {
+        return kappa > 0 ? Math.sqrt(Math.max(1 - sigma, 0) / kappa) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Limit of the speedup for Amdahl (1/σ) or the speedup at the peak for USL.
+     */
+    double maxSpeedup() {
+        if (kappa > 0) {
+            return predict(Math.max(peak(), 1)) / lambda;
+        }
+        return sigma > 0 ? 1 / sigma : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Cross products of x = N - 1, z = N(N - 1) and y = N·X(1)/X(N) - 1: {{xx, xz, zz}, {xy, zy}}.
+     */
+    private static double[][] sums(double[] threads, double[] throughput) {
+        double[][] sums = new double[2][3];
+        for (int i = 0; i < threads.length; i++) {
+            double x = threads[i] - 1;
+            double z = threads[i] * (threads[i] - 1);
+            double y = threads[i] * throughput[0] / throughput[i] - 1;
+            sums[0][0] += x * x;
+            sums[0][1] += x * z;
+            sums[0][2] += z * z;
+            sums[1][0] += x * y;
+            sums[1][1] += z * y;
+        }
+        return sums;
+    }
+
+    private static double sse(double[] threads, double[] throughput, double sigma, double kappa) {
+        double sse = 0;
+        for (int i = 0; i < threads.length; i++) {
+            double y = threads[i] * throughput[0] / throughput[i] - 1;
+            double x = threads[i] - 1;
+            sse += Math.pow(y - sigma * x - kappa * threads[i] * x, 2);
+        }
+        return sse;
+    }
+}
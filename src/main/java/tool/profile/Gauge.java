@@ -0,0 +1,42 @@
+package tool.profile;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A value the benchmark measures once per iteration that is neither a count nor a rate, e.g. a cache hit ratio, so
+ * summing it like {@code @AuxCounters} events would be meaningless. Gauges are registered by name; typically an
+ * iteration-level {@code @TearDown} sets the value and {@link LatencyProfiler} publishes it as {@code ·<name>}
+ * averaged over iterations. A gauge not set during an iteration is not reported for it.
+ */
+public final class Gauge {
+
+    static final Map<String, Gauge> REGISTERED = new ConcurrentHashMap<>();
+
+    private final String unit;
+    private volatile double value = Double.NaN;
+
+    private Gauge(String unit) {
+        this.unit = unit;
+    }
+
+    public static Gauge named(String name, String unit) {
+        return REGISTERED.computeIfAbsent(name, key -> new Gauge(unit));
+    }
+
+    public void set(double value) {
+        this.value = value;
+    }
+
+    void clear() {
+        value = Double.NaN;
+    }
+
+    double value() {
+        return value;
+    }
+
+    String unit() {
+        return unit;
+    }
+}
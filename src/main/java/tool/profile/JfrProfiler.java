@@ -0,0 +1,248 @@
+package tool.profile;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.profile.ProfilerException;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+import org.openjdk.jmh.results.TextResult;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the measurement iterations of every fork with Flight Recorder ({@code profile} settings) and attaches a
+ * summary to the benchmark result: hottest methods by self samples, heaviest allocation sites, GC pauses, and
+ * contended monitor enters and parks. The internal half runs in the fork and dumps the recording after the last
+ * measurement iteration; the external half runs in the host VM once the fork has exited and parses it.
+ * <p>
+ * Options, comma separated: {@code dir=<directory>} for the {@code .jfr} files (default {@code jfr}), which are kept
+ * for JDK Mission Control, and {@code top=<n>} rows per table (default 10).
+ */
+public class JfrProfiler implements InternalProfiler, ExternalProfiler {
+
+    private final Path directory;
+    private final int top;
+    private Recording recording;
+    private int measured;
+
+    public JfrProfiler(String options) throws ProfilerException {
+        Map<String, String> parsed = Profilers.options(options);
+        directory = Paths.get(parsed.getOrDefault("dir", "jfr")).toAbsolutePath();
+        top = Integer.parseInt(parsed.getOrDefault("top", "10"));
+    }
+
+    @Override
+    public String getDescription() {
+        return "Flight Recorder per fork with a hot method, allocation, GC and contention summary";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        if (iterationParams.getType() != IterationType.MEASUREMENT || recording != null) {
+            return;
+        }
+        try {
+            recording = new Recording(Configuration.getConfiguration("profile"));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Cannot load the JFR profile settings", e);
+        }
+        recording.start();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                       IterationResult result) {
+        if (iterationParams.getType() == IterationType.MEASUREMENT && ++measured == iterationParams.getCount()) {
+            try {
+                Files.createDirectories(directory);
+                recording.dump(Profilers.recordingFile(directory, benchmarkParams, ProcessHandle.current().pid()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                recording.close();
+                recording = null;
+                measured = 0;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(BenchmarkParams params) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void beforeTrial(BenchmarkParams benchmarkParams) {
+    }
+
+    @Override
+    public Collection<? extends Result> afterTrial(BenchmarkResult benchmarkResult, long pid, File stdOut, File stdErr) {
+        Path file = Profilers.recordingFile(directory, benchmarkResult.getParams(), pid);
+        if (!Files.exists(file)) {
+            return Collections.singletonList(new TextResult("no recording at " + file
+                    + " (the profiler needs forks > 0)", "jfr"));
+        }
+        Summary summary = new Summary();
+        try (RecordingFile recordingFile = new RecordingFile(file)) {
+            while (recordingFile.hasMoreEvents()) {
+                summary.add(recordingFile.readEvent());
+            }
+        } catch (IOException e) {
+            return Collections.singletonList(new TextResult("cannot read " + file + ": " + e, "jfr"));
+        }
+        List<Result> results = new ArrayList<>();
+        results.add(new TextResult(summary.render(file, top), "jfr"));
+        results.add(new ScalarResult("·jfr.gc.pause.total", summary.gcPauseNanos / 1e6, "ms", AggregationPolicy.AVG));
+        results.add(new ScalarResult("·jfr.gc.pause.count", summary.gcCount, "#", AggregationPolicy.AVG));
+        results.add(new ScalarResult("·jfr.monitor.blocked", summary.monitorNanos / 1e6, "ms", AggregationPolicy.AVG));
+        results.add(new ScalarResult("·jfr.park", summary.parkNanos / 1e6, "ms", AggregationPolicy.AVG));
+        return results;
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    private static final class Summary {
+
+        private final Map<String, Long> methodSamples = new HashMap<>();
+        private final Map<String, Long> allocationWeights = new HashMap<>();
+        private final Map<String, Long> monitorClasses = new HashMap<>();
+        private final Map<String, Long> parkClasses = new HashMap<>();
+        private long executionSamples;
+        private long allocatedBytes;
+        private long gcCount;
+        private long gcPauseNanos;
+        private long gcLongestPauseNanos;
+        private long monitorCount;
+        private long monitorNanos;
+        private long parkCount;
+        private long parkNanos;
+
+        void add(RecordedEvent event) {
+            switch (event.getEventType().getName()) {
+                case "jdk.ExecutionSample":
+                    RecordedFrame frame = topFrame(event.getStackTrace());
+                    if (frame != null) {
+                        executionSamples++;
+                        methodSamples.merge(methodOf(frame), 1L, Long::sum);
+                    }
+                    break;
+                case "jdk.ObjectAllocationSample":
+                    long weight = event.getLong("weight");
+                    allocatedBytes += weight;
+                    allocationWeights.merge(className(event.getClass("objectClass")) + " in "
+                            + allocationSite(event.getStackTrace()), weight, Long::sum);
+                    break;
+                case "jdk.GarbageCollection":
+                    gcCount++;
+                    gcPauseNanos += event.getDuration("sumOfPauses").toNanos();
+                    gcLongestPauseNanos = Math.max(gcLongestPauseNanos, event.getDuration("longestPause").toNanos());
+                    break;
+                case "jdk.JavaMonitorEnter":
+                    monitorCount++;
+                    monitorNanos += event.getDuration().toNanos();
+                    monitorClasses.merge(className(event.getClass("monitorClass")), event.getDuration().toNanos(), Long::sum);
+                    break;
+                case "jdk.ThreadPark":
+                    parkCount++;
+                    parkNanos += event.getDuration().toNanos();
+                    parkClasses.merge(className(event.getClass("parkedClass")), event.getDuration().toNanos(), Long::sum);
+                    break;
+                default:
+            }
+        }
+
+        String render(Path file, int top) {
+            StringBuilder out = new StringBuilder();
+            out.append("recording ").append(file).append('\n');
+            out.append(String.format("hot methods (%d self samples):%n", executionSamples));
+            appendTop(out, methodSamples, executionSamples, top);
+            out.append(String.format("allocation sites (%.1f MB sampled):%n", allocatedBytes / 1048576.0));
+            appendTop(out, allocationWeights, allocatedBytes, top);
+            out.append(String.format("gc: %d collections, %.3f ms paused, longest %.3f ms%n", gcCount, gcPauseNanos / 1e6,
+                    gcLongestPauseNanos / 1e6));
+            out.append(String.format("monitor enter: %d contended, %.3f ms blocked%n", monitorCount, monitorNanos / 1e6));
+            appendTop(out, monitorClasses, monitorNanos, top);
+            out.append(String.format("park: %d events, %.3f ms parked%n", parkCount, parkNanos / 1e6));
+            appendTop(out, parkClasses, parkNanos, top);
+            return out.toString();
+        }
+
+        private static void appendTop(StringBuilder out, Map<String, Long> counts, long total, int top) {
+            counts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(top)
+                    .forEach(entry -> out.append(String.format("  %6.2f%%  %s%n", 100.0 * entry.getValue() / total, entry.getKey())));
+        }
+
+        private static RecordedFrame topFrame(RecordedStackTrace stackTrace) {
+            return stackTrace == null || stackTrace.getFrames().isEmpty() ? null : stackTrace.getFrames().get(0);
+        }
+
+        /**
+         * The allocating frame plus the first caller outside the JDK, since the allocation itself is usually
+         * inside a JDK factory such as {@code ByteBuffer.allocate}.
+         */
+        private static String allocationSite(RecordedStackTrace stackTrace) {
+            RecordedFrame top = topFrame(stackTrace);
+            if (top == null) {
+                return "unknown";
+            }
+            for (RecordedFrame frame : stackTrace.getFrames()) {
+                String type = frame.getMethod().getType().getName();
+                if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                    return frame == top ? methodOf(top) : methodOf(top) + " <- " + methodOf(frame);
+                }
+            }
+            return methodOf(top);
+        }
+
+        private static String methodOf(RecordedFrame frame) {
+            String method = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+            return frame.getLineNumber() > 0 ? method + ":" + frame.getLineNumber() : method;
+        }
+
+        private static String className(RecordedClass recordedClass) {
+            return recordedClass == null ? "unknown" : recordedClass.getName();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package tool.profile;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedObject;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.profile.ProfilerException;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+import org.openjdk.jmh.results.TextResult;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records JIT activity of every fork with Flight Recorder ({@code jdk.Compilation}, {@code jdk.Deoptimization},
+ * {@code jdk.CompilationFailure} and optionally {@code jdk.CompilerInlining}) from the first iteration the profiler
+ * sees on, and lines the events up with the iterations they happened in. The summary lists compiles, OSR compiles,
+ * deopts and failed inlining per iteration next to its score, marks iterations more than 5% off the measurement
+ * median, and flags every deoptimization of C2 code during measurement: a method that was hot enough for C2 and is
+ * thrown back to the interpreter while the score is being taken is the usual cause of bimodal results.
+ * <p>
+ * JMH does not call profilers during bulk warmup, so the launcher switches to per-benchmark warmup whenever this
+ * profiler is on; when the warmup iterations were still not seen, the summary says that warmup compiles are missing.
+ * <p>
+ * Options, comma separated: {@code dir=<directory>} for the recordings and iteration windows (default {@code jit}),
+ * {@code inlining=true} to record inlining decisions (many events), and {@code top=<n>} deoptimizations to list
+ * (default 20).
+ */
+public class JitProfiler implements InternalProfiler, ExternalProfiler {
+
+    private static final double OUTLIER = 0.05;
+
+    private final Path directory;
+    private final boolean inlining;
+    private final int top;
+    private final List<String> windows = new ArrayList<>();
+    private Recording recording;
+    private Instant iterationStart;
+    private int measured;
+
+    public JitProfiler(String options) throws ProfilerException {
+        Map<String, String> parsed = Profilers.options(options);
+        directory = Paths.get(parsed.getOrDefault("dir", "jit")).toAbsolutePath();
+        inlining = Boolean.parseBoolean(parsed.getOrDefault("inlining", "false"));
+        top = Integer.parseInt(parsed.getOrDefault("top", "20"));
+    }
+
+    @Override
+    public String getDescription() {
+        return "JIT compilations, OSR, deoptimizations and inlining failures per iteration, from Flight Recorder";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        if (recording == null) {
+            recording = new Recording();
+            recording.enable("jdk.Compilation").withThreshold(Duration.ZERO);
+            recording.enable("jdk.CompilationFailure");
+            recording.enable("jdk.Deoptimization");
+            if (inlining) {
+                recording.enable("jdk.CompilerInlining");
+            }
+            recording.start();
+        }
+        iterationStart = Instant.now();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                       IterationResult result) {
+        boolean measurement = iterationParams.getType() == IterationType.MEASUREMENT;
+        windows.add(String.join(" ", measurement ? "M" : "W", iterationStart.toString(), Instant.now().toString(),
+                String.valueOf(result.getPrimaryResult().getScore())));
+        if (measurement && ++measured == iterationParams.getCount()) {
+            Path file = Profilers.recordingFile(directory, benchmarkParams, ProcessHandle.current().pid());
+            try {
+                Files.createDirectories(directory);
+                recording.dump(file);
+                Files.write(windowsFile(file), windows);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                recording.close();
+                recording = null;
+                windows.clear();
+                measured = 0;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(BenchmarkParams params) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(BenchmarkParams params) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void beforeTrial(BenchmarkParams benchmarkParams) {
+    }
+
+    @Override
+    public Collection<? extends Result> afterTrial(BenchmarkResult benchmarkResult, long pid, File stdOut, File stdErr) {
+        Path file = Profilers.recordingFile(directory, benchmarkResult.getParams(), pid);
+        if (!Files.exists(file)) {
+            return Collections.singletonList(new TextResult("no recording at " + file
+                    + " (the profiler needs forks > 0)", "jit"));
+        }
+        Timeline timeline;
+        try {
+            timeline = new Timeline(Files.readAllLines(windowsFile(file)));
+            try (RecordingFile recordingFile = new RecordingFile(file)) {
+                while (recordingFile.hasMoreEvents()) {
+                    timeline.add(recordingFile.readEvent());
+                }
+            }
+        } catch (IOException e) {
+            return Collections.singletonList(new TextResult("cannot read " + file + ": " + e, "jit"));
+        }
+        List<Result> results = new ArrayList<>();
+        results.add(new TextResult(timeline.render(file, top, benchmarkResult.getParams().getWarmup().getCount()), "jit"));
+        results.add(new ScalarResult("·jit.measurement.compiles", timeline.measurement(0), "#", AggregationPolicy.AVG));
+        results.add(new ScalarResult("·jit.measurement.osr", timeline.measurement(1), "#", AggregationPolicy.AVG));
+        results.add(new ScalarResult("·jit.measurement.deopts", timeline.measurement(2), "#", AggregationPolicy.AVG));
+        results.add(new ScalarResult("·jit.measurement.c2deopts", timeline.c2Deopts.size(), "#", AggregationPolicy.AVG));
+        if (inlining) {
+            results.add(new ScalarResult("·jit.measurement.inliningFailures", timeline.measurement(3), "#", AggregationPolicy.AVG));
+        }
+        return results;
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    private static Path windowsFile(Path recording) {
+        return recording.resolveSibling(recording.getFileName() + ".iterations");
+    }
+
+    /**
+     * Iterations in order with their wall clock window, score and counts of compiles, OSR compiles, deopts and
+     * failed inlining; events outside every window (teardown of one iteration, setup of the next) count towards the
+     * preceding iteration, and events before the first window towards the first.
+     */
+    private static final class Timeline {
+
+        private final List<String> labels = new ArrayList<>();
+        private final List<Instant> starts = new ArrayList<>();
+        private final List<Double> scores = new ArrayList<>();
+        private final List<long[]> counts = new ArrayList<>();
+        private final List<String> c2Deopts = new ArrayList<>();
+        private final Map<String, Long> deoptReasons = new LinkedHashMap<>();
+        private long compilationFailures;
+        private int firstMeasurement = -1;
+
+        Timeline(List<String> windows) {
+            int warmup = 0;
+            int measurement = 0;
+            for (String window : windows) {
+                String[] fields = window.split(" ");
+                boolean isMeasurement = fields[0].equals("M");
+                if (isMeasurement && firstMeasurement < 0) {
+                    firstMeasurement = labels.size();
+                }
+                labels.add(isMeasurement ? "M" + ++measurement : "W" + ++warmup);
+                starts.add(Instant.parse(fields[1]));
+                scores.add(Double.parseDouble(fields[3]));
+                counts.add(new long[4]);
+            }
+        }
+
+        void add(RecordedEvent event) {
+            int iteration = iterationAt(event.getEndTime());
+            switch (event.getEventType().getName()) {
+                case "jdk.Compilation":
+                    counts.get(iteration)[event.getBoolean("isOsr") ? 1 : 0]++;
+                    break;
+                case "jdk.CompilationFailure":
+                    compilationFailures++;
+                    break;
+                case "jdk.Deoptimization":
+                    counts.get(iteration)[2]++;
+                    String reason = event.getString("reason") + "/" + event.getString("action");
+                    deoptReasons.merge(reason, 1L, Long::sum);
+                    boolean c2 = "c2".equalsIgnoreCase(event.getString("compiler"));
+                    if (c2 && firstMeasurement >= 0 && iteration >= firstMeasurement) {
+                        c2Deopts.add(String.format("%s %s:%d bci %d %s, %s", labels.get(iteration),
+                                method(event.getValue("method")), event.getInt("lineNumber"), event.getInt("bci"),
+                                event.getString("instruction"), reason));
+                    }
+                    break;
+                case "jdk.CompilerInlining":
+                    if (!event.getBoolean("succeeded")) {
+                        counts.get(iteration)[3]++;
+                    }
+                    break;
+                default:
+            }
+        }
+
+        /**
+         * Sum of one count over the measurement iterations.
+         */
+        long measurement(int index) {
+            long sum = 0;
+            for (int i = firstMeasurement; i >= 0 && i < counts.size(); i++) {
+                sum += counts.get(i)[index];
+            }
+            return sum;
+        }
+
+        String render(Path file, int top, int warmupIterations) {
+            StringBuilder out = new StringBuilder();
+            out.append("recording ").append(file).append('\n');
+            if (warmupIterations > 0 && firstMeasurement == 0) {
+                out.append(String.format("WARNING: none of the %d warmup iterations was profiled (bulk warmup?), so "
+                        + "compiles during warmup are missing%n", warmupIterations));
+            }
+            double median = median();
+            out.append(String.format("%-6s %14s %8s %9s %5s %7s %10s%n", "iter", "score", "vs med", "compiles", "osr",
+                    "deopts", "inl fail"));
+            for (int i = 0; i < labels.size(); i++) {
+                long[] c = counts.get(i);
+                double deviation = scores.get(i) / median - 1;
+                boolean outlier = firstMeasurement >= 0 && i >= firstMeasurement && Math.abs(deviation) > OUTLIER;
+                String mark = !outlier ? "" : c[0] + c[2] > 0 ? "  << outlier with JIT activity" : "  << outlier";
+                out.append(String.format("%-6s %14.6g %+7.1f%% %9d %5d %7d %10d%s%n", labels.get(i), scores.get(i),
+                        deviation * 100, c[0], c[1], c[2], c[3], mark));
+            }
+            out.append(String.format("compilation failures: %d%n", compilationFailures));
+            if (!deoptReasons.isEmpty()) {
+                out.append("deoptimizations by reason/action:\n");
+                deoptReasons.forEach((reason, count) -> out.append(String.format("  %6d  %s%n", count, reason)));
+            }
+            if (c2Deopts.isEmpty()) {
+                out.append("no C2-compiled method was deoptimized during measurement\n");
+            } else {
+                out.append(String.format("WARNING: %d deoptimizations of C2 code during measurement, results may be bimodal:%n",
+                        c2Deopts.size()));
+                c2Deopts.stream().limit(top).forEach(deopt -> out.append("  ").append(deopt).append('\n'));
+            }
+            return out.toString();
+        }
+
+        private int iterationAt(Instant time) {
+            int iteration = 0;
+            while (iteration + 1 < starts.size() && !time.isBefore(starts.get(iteration + 1))) {
+                iteration++;
+            }
+            return iteration;
+        }
+
+        private double median() {
+            double[] measured = scores.subList(Math.max(firstMeasurement, 0), scores.size()).stream()
+                    .mapToDouble(Double::doubleValue).sorted().toArray();
+            if (measured.length == 0) {
+                return Double.NaN;
+            }
+            int middle = measured.length / 2;
+            return measured.length % 2 == 1 ? measured[middle] : (measured[middle - 1] + measured[middle]) / 2;
+        }
+
+        private static String method(RecordedObject method) {
+            if (!(method instanceof RecordedMethod)) {
+                return "unknown";
+            }
+            RecordedMethod recorded = (RecordedMethod) method;
+            return recorded.getType().getName() + "." + recorded.getName();
+        }
+    }
+}
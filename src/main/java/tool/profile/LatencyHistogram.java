@@ -0,0 +1,77 @@
+package tool.profile;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of nanosecond latencies that a benchmark records itself, for steps finer than its operation
+ * (e.g. every file of an operation that reads a thousand). Histograms are registered by name and shared by all
+ * threads of the fork; {@link LatencyProfiler} clears them before every iteration and publishes their percentiles
+ * after it. Buckets are 1/16 of a power of two wide, so a percentile is within 6.25% of the recorded value.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 16;
+    static final Map<String, LatencyHistogram> REGISTERED = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+
+    private LatencyHistogram() {
+    }
+
+    public static LatencyHistogram named(String name) {
+        return REGISTERED.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public void record(long nanos) {
+        buckets.incrementAndGet(bucketOf(nanos));
+    }
+
+    void clear() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+    }
+
+    long count() {
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            total += buckets.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Upper bound of the bucket holding the {@code quantile} rank, 0 when nothing was recorded.
+     */
+    long percentile(double quantile) {
+        long rank = (long) Math.ceil(count() * quantile);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return upperBoundOf(i);
+            }
+        }
+        return 0;
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(value, 0);
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - 4)) & (SUB_BUCKETS - 1);
+        return (magnitude - 3) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKETS + 3;
+        long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (magnitude - 4)) - 1;
+    }
+}
@@ -0,0 +1,60 @@
+package tool.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes every {@link LatencyHistogram} the benchmark recorded into during the iteration as
+ * {@code ·latency.<name>.p50}, {@code .p99} and {@code .p99.9} in microseconds. Each value describes one iteration
+ * of all threads, so the results average over iterations instead of adding up as {@code @AuxCounters} events would.
+ * {@link Gauge}s set during the iteration are published alongside as {@code ·<name>}. The launcher adds this profiler
+ * to every run; it reports nothing for benchmarks without histograms or gauges.
+ */
+public class LatencyProfiler implements InternalProfiler {
+
+    private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+    private static final String[] LABELS = { "p50", "p99", "p99.9" };
+
+    @Override
+    public String getDescription() {
+        return "Percentiles of latency histograms and gauges recorded by the benchmark itself";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        LatencyHistogram.REGISTERED.values().forEach(LatencyHistogram::clear);
+        Gauge.REGISTERED.values().forEach(Gauge::clear);
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                       IterationResult result) {
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, LatencyHistogram> entry : LatencyHistogram.REGISTERED.entrySet()) {
+            if (entry.getValue().count() == 0) {
+                continue;
+            }
+            for (int i = 0; i < QUANTILES.length; i++) {
+                results.add(new ScalarResult("·latency." + entry.getKey() + "." + LABELS[i],
+                        entry.getValue().percentile(QUANTILES[i]) / 1000.0, "us", AggregationPolicy.AVG));
+            }
+        }
+        for (Map.Entry<String, Gauge> entry : Gauge.REGISTERED.entrySet()) {
+            double value = entry.getValue().value();
+            if (!Double.isNaN(value)) {
+                results.add(new ScalarResult("·" + entry.getKey(), value, entry.getValue().unit(), AggregationPolicy.AVG));
+            }
+        }
+        return results;
+    }
+}
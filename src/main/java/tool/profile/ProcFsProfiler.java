@@ -0,0 +1,197 @@
+package tool.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.profile.ProfilerException;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Linux-only profiler that snapshots procfs around every iteration of the benchmark JVM and reports the deltas per
+ * operation:
+ * <ul>
+ * <li>{@code /proc/self/io}: read/write syscalls, bytes passed through them ({@code rchar}/{@code wchar}, page cache
+ * hits included) and bytes that reached the block layer ({@code read_bytes}/{@code write_bytes});</li>
+ * <li>{@code /proc/self/stat}: user and system CPU time of the whole process, including threads that already
+ * exited, at the kernel's 10ms clock tick resolution;</li>
+ * <li>{@code /proc/self/task/*&#47;status}: voluntary and involuntary context switches of all threads;</li>
+ * <li>{@code /proc/self/task/*&#47;schedstat}: run-queue wait time of all threads, and how busy the busiest thread
+ * was.</li>
+ * </ul>
+ * The kernel keeps no per-thread counters once a thread is reaped, so context switches and run-queue wait only cover
+ * the threads still alive at the end of the iteration. {@code ·proc.threads.exited} counts the threads that were
+ * missed, and {@code ·proc.cpu.exitedThreads.norm} is the share of process CPU time they used; when these are not
+ * zero, e.g. for benchmarks that create a pool per invocation, the thread sums are a lower bound.
+ */
+public class ProcFsProfiler implements InternalProfiler {
+
+    private static final Path PROC_SELF = Paths.get("/proc/self");
+    private static final String[] IO_COUNTERS = { "syscr", "syscw", "rchar", "wchar", "read_bytes", "write_bytes" };
+    private static final String[] IO_UNITS = { "#/op", "#/op", "B/op", "B/op", "B/op", "B/op" };
+    /**
+     * {@code USER_HZ}, the unit of {@code utime} and {@code stime}; the kernel fixes it at 100 on every architecture
+     * the JDK supports.
+     */
+    private static final long NANOS_PER_TICK = 10_000_000L;
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private final boolean ioAvailable;
+    private Map<String, Long> ioBefore;
+    private Map<String, long[]> threadsBefore;
+    private long processCpuBefore;
+    private long startedBefore;
+    private long startNanos;
+
+    public ProcFsProfiler() throws ProfilerException {
+        if (!Files.isReadable(PROC_SELF.resolve("schedstat"))) {
+            throw new ProfilerException("procfs with schedstat is not available on this platform");
+        }
+        ioAvailable = Files.isReadable(PROC_SELF.resolve("io"));
+    }
+
+    @Override
+    public String getDescription() {
+        return "Syscalls, I/O bytes, context switches and CPU/run-queue time from Linux procfs";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        ioBefore = ioAvailable ? readIo() : null;
+        threadsBefore = readThreads();
+        processCpuBefore = readProcessCpu();
+        startedBefore = threadBean.getTotalStartedThreadCount();
+        startNanos = System.nanoTime();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                       IterationResult result) {
+        long wallNanos = System.nanoTime() - startNanos;
+        long processCpu = readProcessCpu() - processCpuBefore;
+        long started = threadBean.getTotalStartedThreadCount() - startedBefore;
+        Map<String, long[]> threadsAfter = readThreads();
+        Map<String, Long> ioAfter = ioAvailable ? readIo() : null;
+        double ops = Math.max(result.getMetadata().getMeasuredOps(), 1);
+        List<Result> results = new ArrayList<>();
+        if (ioAfter != null) {
+            for (int i = 0; i < IO_COUNTERS.length; i++) {
+                long delta = ioAfter.getOrDefault(IO_COUNTERS[i], 0L) - ioBefore.getOrDefault(IO_COUNTERS[i], 0L);
+                results.add(new ScalarResult("·proc." + IO_COUNTERS[i] + ".norm", delta / ops, IO_UNITS[i], AggregationPolicy.AVG));
+            }
+        }
+        long cpu = 0;
+        long wait = 0;
+        long busiest = 0;
+        long voluntary = 0;
+        long involuntary = 0;
+        long born = 0;
+        for (Map.Entry<String, long[]> thread : threadsAfter.entrySet()) {
+            long[] after = thread.getValue();
+            long[] before = threadsBefore.get(thread.getKey());
+            if (before == null) {
+                before = new long[after.length];
+                born++;
+            }
+            cpu += after[0] - before[0];
+            wait += after[1] - before[1];
+            busiest = Math.max(busiest, after[0] - before[0]);
+            voluntary += after[2] - before[2];
+            involuntary += after[3] - before[3];
+        }
+        // exited before the end: alive at the start and gone now, or started and gone within the iteration
+        long vanished = threadsBefore.keySet().stream().filter(thread -> !threadsAfter.containsKey(thread)).count();
+        long exited = vanished + Math.max(started - born, 0);
+        results.add(new ScalarResult("·proc.cpu.norm", processCpu / ops, "ns/op", AggregationPolicy.AVG));
+        results.add(new ScalarResult("·proc.cpu.util", 100.0 * processCpu / wallNanos, "%", AggregationPolicy.AVG));
+        results.add(new ScalarResult("·proc.cpu.exitedThreads.norm", Math.max(processCpu - cpu, 0) / ops, "ns/op",
+                AggregationPolicy.AVG));
+        results.add(new ScalarResult("·proc.threads.exited", exited, "#", AggregationPolicy.AVG));
+        results.add(new ScalarResult("·proc.cpu.busiestThread.util", 100.0 * busiest / wallNanos, "%", AggregationPolicy.AVG));
+        results.add(new ScalarResult("·proc.runqueue.wait.norm", wait / ops, "ns/op", AggregationPolicy.AVG));
+        results.add(new ScalarResult("·proc.cswitch.voluntary.norm", voluntary / ops, "#/op", AggregationPolicy.AVG));
+        results.add(new ScalarResult("·proc.cswitch.involuntary.norm", involuntary / ops, "#/op", AggregationPolicy.AVG));
+        return results;
+    }
+
+    private static Map<String, Long> readIo() {
+        Map<String, Long> counters = new HashMap<>();
+        for (String line : readLines(PROC_SELF.resolve("io"))) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                counters.put(line.substring(0, colon), Long.parseLong(line.substring(colon + 1).trim()));
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * User plus system CPU time of the process in ns, threads that exited included.
+     */
+    private static long readProcessCpu() {
+        String stat = readLines(PROC_SELF.resolve("stat")).get(0);
+        // the command name may contain spaces and parentheses, the fields after it do not
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        return (Long.parseLong(fields[11]) + Long.parseLong(fields[12])) * NANOS_PER_TICK;
+    }
+
+    /**
+     * Per thread id: on-CPU ns, run-queue wait ns, voluntary and involuntary context switches. A thread that exits
+     * while it is being read is left out, like one that exited before the listing.
+     */
+    private static Map<String, long[]> readThreads() {
+        Map<String, long[]> threads = new HashMap<>();
+        try (Stream<Path> tasks = Files.list(PROC_SELF.resolve("task"))) {
+            for (Path task : (Iterable<Path>) tasks::iterator) {
+                try {
+                    threads.put(task.getFileName().toString(), readThread(task));
+                } catch (IOException e) {
+                    if (Files.exists(task)) {
+                        throw e;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return threads;
+    }
+
+    private static long[] readThread(Path task) throws IOException {
+        String[] times = Files.readAllLines(task.resolve("schedstat")).get(0).trim().split("\\s+");
+        long[] counters = { Long.parseLong(times[0]), Long.parseLong(times[1]), 0, 0 };
+        for (String line : Files.readAllLines(task.resolve("status"))) {
+            if (line.startsWith("voluntary_ctxt_switches:")) {
+                counters[2] = Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            } else if (line.startsWith("nonvoluntary_ctxt_switches:")) {
+                counters[3] = Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            }
+        }
+        return counters;
+    }
+
+    private static List<String> readLines(Path file) {
+        try {
+            return Files.readAllLines(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package tool.profile;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.ProfilerException;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Option parsing and recording file names shared by the profilers that record each fork to a file.
+ */
+final class Profilers {
+
+    private Profilers() {
+    }
+
+    /**
+     * Parses the comma separated {@code key=value} options JMH passes after {@code -prof name:}.
+     */
+    static Map<String, String> options(String options) throws ProfilerException {
+        Map<String, String> parsed = new HashMap<>();
+        for (String option : options.split(",")) {
+            int equals = option.indexOf('=');
+            if (equals > 0) {
+                parsed.put(option.substring(0, equals).trim(), option.substring(equals + 1).trim());
+            } else if (!option.isBlank()) {
+                throw new ProfilerException("Expected key=value but got " + option);
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * The {@code .jfr} file of the fork with {@code pid}, named so that both halves of a profiler find it: the fork
+     * knows its own pid and the host gets it in {@code afterTrial}.
+     */
+    static Path recordingFile(Path directory, BenchmarkParams params, long pid) {
+        return directory.resolve(params.id().replaceAll("[^A-Za-z0-9._-]", "_") + "-" + pid + ".jfr");
+    }
+}
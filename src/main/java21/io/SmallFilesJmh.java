@@ -0,0 +1,185 @@
+package io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import tool.Tag;
+import tool.profile.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One operation reads the whole corpus of {@link #FILE_COUNT} files end to end (open, read, close), so the
+ * throughput score is files per second. The latency of every single file goes to the {@code perFile} histogram, which
+ * the launcher's latency profiler publishes as {@code ·latency.perFile.p50/p99/p99.9} per iteration.
+ */
+@Tag({ "read", "concurrency", "jdk21" })
+public class SmallFilesJmh {
+
+    private static final ThreadLocalRandom RANDOM = ThreadLocalRandom.current();
+    private static final int FILE_COUNT = 1000;
+    private static final LatencyHistogram PER_FILE = LatencyHistogram.named("perFile");
+
+    @Benchmark
+    @OperationsPerInvocation(FILE_COUNT)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public static long readSingleThread(CorpusState corpus) {
+        long read = 0;
+        for (Path file : corpus.files) {
+            read += read(file);
+        }
+        return read;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILE_COUNT)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public static long readAllBytes(CorpusState corpus) {
+        long read = 0;
+        for (Path file : corpus.files) {
+            read += readAllBytes(file);
+        }
+        return read;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILE_COUNT)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public static long readWithPlatformPool(CorpusState corpus, PoolState pools)
+            throws InterruptedException, ExecutionException {
+        return readAll(pools.platformPool, corpus);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILE_COUNT)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public static long readWithForkJoinPool(CorpusState corpus, PoolState pools)
+            throws InterruptedException, ExecutionException {
+        return readAll(pools.forkJoinPool, corpus);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILE_COUNT)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public static long readWithVirtualThreadPerFile(CorpusState corpus)
+            throws InterruptedException, ExecutionException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            return readAll(executor, corpus);
+        }
+    }
+
+    private static long readAll(ExecutorService executor, CorpusState corpus)
+            throws InterruptedException, ExecutionException {
+        List<Callable<Integer>> reads = new ArrayList<>(corpus.files.size());
+        for (Path file : corpus.files) {
+            reads.add(() -> read(file));
+        }
+        long read = 0;
+        for (Future<Integer> future : executor.invokeAll(reads)) {
+            read += future.get();
+        }
+        return read;
+    }
+
+    private static int read(Path file) {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file)) {
+            ByteBuffer dest = ByteBuffer.allocate((int) channel.size());
+            while (dest.hasRemaining() && channel.read(dest) >= 0) {
+            }
+            PER_FILE.record(System.nanoTime() - start);
+            return dest.position();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int readAllBytes(Path file) {
+        long start = System.nanoTime();
+        try {
+            int read = Files.readAllBytes(file).length;
+            PER_FILE.record(System.nanoTime() - start);
+            return read;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CorpusState {
+
+        @Param({ "1024", "16384", "65536" })
+        private int fileSize;
+        private Path directory;
+        private List<Path> files;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory(SmallFilesJmh.class.getSimpleName() + "_" + RANDOM.nextInt(Integer.MAX_VALUE));
+            files = new ArrayList<>(FILE_COUNT);
+            byte[] data = new byte[fileSize];
+            for (int i = 0; i < FILE_COUNT; i++) {
+                RANDOM.nextBytes(data);
+                files.add(Files.write(directory.resolve(i + ".dat"), data));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PoolState {
+
+        @Param({ "8", "64" })
+        private int poolThreads;
+        private ExecutorService platformPool;
+        private ForkJoinPool forkJoinPool;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            platformPool = Executors.newFixedThreadPool(poolThreads);
+            forkJoinPool = new ForkJoinPool(poolThreads);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            platformPool.shutdownNow();
+            forkJoinPool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package io;
+
+import com.sun.nio.file.ExtendedOpenOption;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import tool.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One operation is a batch of {@code queueDepth} random block reads, so IOPS is throughput times queue depth.
+ */
+@Tag({ "read", "native", "concurrency", "jdk22" })
+@Fork(jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+public class IoUringJmh {
+
+    private static final int ALIGNMENT = 4096;
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    public static long ioUringBatch(UringState state) throws IOException {
+        for (int i = 0; i < state.queueDepth; i++) {
+            state.ring.prepareRead(state.segments[i], state.nextRandomOffset(), i);
+        }
+        return state.submitAndReap();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    public static long ioUringFixedBufferBatch(UringState state) throws IOException {
+        for (int i = 0; i < state.queueDepth; i++) {
+            state.ring.prepareReadFixed(state.segments[i], i, state.nextRandomOffset(), i);
+        }
+        return state.submitAndReap();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    public static long channelSerialBatch(UringState state) throws IOException {
+        long read = 0;
+        for (int i = 0; i < state.queueDepth; i++) {
+            read += state.channel.read(state.buffers[i].clear(), state.nextRandomOffset());
+        }
+        return read;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    public static long channelParallelBatch(UringState state) throws InterruptedException, ExecutionException {
+        List<Callable<Integer>> reads = new ArrayList<>(state.queueDepth);
+        for (int i = 0; i < state.queueDepth; i++) {
+            ByteBuffer buffer = state.buffers[i];
+            long offset = state.nextRandomOffset();
+            reads.add(() -> state.channel.read(buffer.clear(), offset));
+        }
+        long read = 0;
+        for (Future<Integer> future : state.executor.invokeAll(reads)) {
+            read += future.get();
+        }
+        return read;
+    }
+
+    @State(Scope.Benchmark)
+    public static class UringState {
+
+        @Param({ "268435456" })
+        private long fileSize;
+        @Param({ "4096" })
+        private int blockSize;
+        @Param({ "1", "8", "32" })
+        private int queueDepth;
+        @Param({ "false", "true" })
+        private boolean direct;
+        private IoUringReader ring;
+        private FileChannel channel;
+        private ExecutorService executor;
+        private Arena arena;
+        private MemorySegment[] segments;
+        private ByteBuffer[] buffers;
+        private long[] userData;
+        private int[] results;
+        private File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            if (!IoUringReader.isSupported()) {
+                throw new IllegalStateException("io_uring is not available on this kernel");
+            }
+            file = Corpus.file(fileSize).toFile();
+            ring = new IoUringReader(file.toPath(), queueDepth, direct);
+            channel = FileChannel.open(file.toPath(), direct
+                    ? new OpenOption[] { StandardOpenOption.READ, ExtendedOpenOption.DIRECT }
+                    : new OpenOption[] { StandardOpenOption.READ });
+            executor = Executors.newFixedThreadPool(queueDepth);
+            arena = Arena.ofShared();
+            segments = new MemorySegment[queueDepth];
+            buffers = new ByteBuffer[queueDepth];
+            for (int i = 0; i < queueDepth; i++) {
+                segments[i] = arena.allocate(blockSize, ALIGNMENT);
+                buffers[i] = segments[i].asByteBuffer();
+            }
+            ring.registerBuffers(segments);
+            userData = new long[queueDepth];
+            results = new int[queueDepth];
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            executor.shutdownNow();
+            try {
+                ring.close();
+                channel.close();
+            } finally {
+                arena.close();
+            }
+        }
+
+        private long submitAndReap() throws IOException {
+            ring.submit(queueDepth);
+            long read = 0;
+            int completed = 0;
+            while (completed < queueDepth) {
+                int reaped = ring.reap(userData, results);
+                if (reaped == 0) {
+                    ring.submit(1);
+                    continue;
+                }
+                for (int i = 0; i < reaped; i++) {
+                    if (results[i] < 0) {
+                        throw new IOException("io_uring read failed with errno " + -results[i]);
+                    }
+                    read += results[i];
+                }
+                completed += reaped;
+            }
+            return read;
+        }
+
+        private long nextRandomOffset() {
+            return ThreadLocalRandom.current().nextLong(fileSize / blockSize) * blockSize;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.SymbolLookup;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Experimental Linux io_uring file reader that issues the raw {@code io_uring_setup}, {@code io_uring_enter} and
+ * {@code io_uring_register} syscalls through the FFM API, without liburing.
+ * Reads are queued with {@link #prepareRead} or {@link #prepareReadFixed}, submitted together by {@link #submit},
+ * and their completions drained with {@link #reap}. Not thread safe.
+ */
+public class IoUringReader implements Closeable {
+
+    private static final long SYS_IO_URING_SETUP = 425;
+    private static final long SYS_IO_URING_ENTER = 426;
+    private static final long SYS_IO_URING_REGISTER = 427;
+
+    private static final int IORING_ENTER_GETEVENTS = 1;
+    private static final int IORING_REGISTER_BUFFERS = 0;
+    private static final int IORING_FEAT_SINGLE_MMAP = 1;
+    private static final long IORING_OFF_SQ_RING = 0L;
+    private static final long IORING_OFF_CQ_RING = 0x8000000L;
+    private static final long IORING_OFF_SQES = 0x10000000L;
+    private static final byte IORING_OP_READ_FIXED = 4;
+    private static final byte IORING_OP_READ = 22;
+
+    private static final int PROT_READ = 0x1;
+    private static final int PROT_WRITE = 0x2;
+    private static final int MAP_SHARED = 0x01;
+    private static final int MAP_POPULATE = 0x8000;
+    private static final int O_RDONLY = 0;
+    private static final int O_DIRECT = "aarch64".equals(System.getProperty("os.arch")) ? 0x10000 : 0x4000;
+
+    private static final int PARAMS_SIZE = 120;
+    private static final int SQ_OFF = 40;
+    private static final int CQ_OFF = 80;
+    private static final int SQE_SIZE = 64;
+    private static final int CQE_SIZE = 16;
+    private static final int IOVEC_SIZE = 16;
+
+    private static final Linker LINKER = Linker.nativeLinker();
+    private static final SymbolLookup LIBC = LINKER.defaultLookup();
+    private static final StructLayout CALL_STATE = Linker.Option.captureStateLayout();
+    private static final long ERRNO_OFFSET = CALL_STATE.byteOffset(MemoryLayout.PathElement.groupElement("errno"));
+    private static final MethodHandle SYSCALL = LINKER.downcallHandle(
+            LIBC.find("syscall").orElseThrow(),
+            FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG,
+                    ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG),
+            Linker.Option.captureCallState("errno"), Linker.Option.firstVariadicArg(1));
+    private static final MethodHandle MMAP = LINKER.downcallHandle(
+            LIBC.find("mmap").orElseThrow(),
+            FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT,
+                    ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG),
+            Linker.Option.captureCallState("errno"));
+    private static final MethodHandle MUNMAP = LINKER.downcallHandle(
+            LIBC.find("munmap").orElseThrow(),
+            FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG));
+    private static final MethodHandle OPEN = LINKER.downcallHandle(
+            LIBC.find("open").orElseThrow(),
+            FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT),
+            Linker.Option.captureCallState("errno"), Linker.Option.firstVariadicArg(2));
+    private static final MethodHandle CLOSE = LINKER.downcallHandle(
+            LIBC.find("close").orElseThrow(),
+            FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT));
+
+    private final Arena arena = Arena.ofShared();
+    private final MemorySegment callState = arena.allocate(CALL_STATE);
+    private final int ringFd;
+    private final int fileFd;
+    private final MemorySegment sqRing;
+    private final MemorySegment cqRing;
+    private final MemorySegment sqes;
+    private final long sqRingSize;
+    private final long cqRingSize;
+    private final long sqesSize;
+    private final int sqHead;
+    private final int sqTail;
+    private final int sqMask;
+    private final int sqArray;
+    private final int sqEntries;
+    private final int cqHead;
+    private final int cqTail;
+    private final int cqMask;
+    private final int cqes;
+    private int pendingTail;
+    private int toSubmit;
+
+    public IoUringReader(Path file, int entries, boolean direct) throws IOException {
+        MemorySegment params = arena.allocate(PARAMS_SIZE, 8);
+        ringFd = (int) check(syscall(SYS_IO_URING_SETUP, entries, params.address(), 0, 0), "io_uring_setup");
+        try {
+            sqEntries = params.get(ValueLayout.JAVA_INT, 0);
+            int cqEntries = params.get(ValueLayout.JAVA_INT, 4);
+            int features = params.get(ValueLayout.JAVA_INT, 20);
+            sqHead = params.get(ValueLayout.JAVA_INT, SQ_OFF);
+            sqTail = params.get(ValueLayout.JAVA_INT, SQ_OFF + 4);
+            sqArray = params.get(ValueLayout.JAVA_INT, SQ_OFF + 24);
+            cqHead = params.get(ValueLayout.JAVA_INT, CQ_OFF);
+            cqTail = params.get(ValueLayout.JAVA_INT, CQ_OFF + 4);
+            cqes = params.get(ValueLayout.JAVA_INT, CQ_OFF + 20);
+
+            long sqSize = sqArray + (long) sqEntries * Integer.BYTES;
+            long cqSize = cqes + (long) cqEntries * CQE_SIZE;
+            if ((features & IORING_FEAT_SINGLE_MMAP) != 0) {
+                sqRingSize = Math.max(sqSize, cqSize);
+                sqRing = mmap(sqRingSize, IORING_OFF_SQ_RING);
+                cqRing = sqRing;
+                cqRingSize = 0;
+            } else {
+                sqRingSize = sqSize;
+                cqRingSize = cqSize;
+                sqRing = mmap(sqRingSize, IORING_OFF_SQ_RING);
+                cqRing = mmap(cqRingSize, IORING_OFF_CQ_RING);
+            }
+            sqesSize = (long) sqEntries * SQE_SIZE;
+            sqes = mmap(sqesSize, IORING_OFF_SQES);
+            sqMask = sqRing.get(ValueLayout.JAVA_INT, params.get(ValueLayout.JAVA_INT, SQ_OFF + 8));
+            cqMask = cqRing.get(ValueLayout.JAVA_INT, params.get(ValueLayout.JAVA_INT, CQ_OFF + 8));
+            pendingTail = sqRing.get(ValueLayout.JAVA_INT, sqTail);
+            fileFd = open(file, direct);
+        } catch (IOException | RuntimeException e) {
+            closeFd(ringFd);
+            arena.close();
+            throw e;
+        }
+    }
+
+    public static boolean isSupported() {
+        if (!"Linux".equals(System.getProperty("os.name"))) {
+            return false;
+        }
+        try (Arena probe = Arena.ofConfined()) {
+            MemorySegment params = probe.allocate(PARAMS_SIZE, 8);
+            long fd = (long) SYSCALL.invokeExact(probe.allocate(CALL_STATE), SYS_IO_URING_SETUP, 1L, params.address(), 0L, 0L, 0L, 0L);
+            if (fd < 0) {
+                return false;
+            }
+            closeFd((int) fd);
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    public int entries() {
+        return sqEntries;
+    }
+
+    /**
+     * Registers {@code buffers} with the kernel so they can be targeted by {@link #prepareReadFixed} by index.
+     */
+    public void registerBuffers(MemorySegment[] buffers) throws IOException {
+        MemorySegment iovecs = arena.allocate((long) buffers.length * IOVEC_SIZE, 8);
+        for (int i = 0; i < buffers.length; i++) {
+            iovecs.set(ValueLayout.JAVA_LONG, (long) i * IOVEC_SIZE, buffers[i].address());
+            iovecs.set(ValueLayout.JAVA_LONG, (long) i * IOVEC_SIZE + 8, buffers[i].byteSize());
+        }
+        check(syscall(SYS_IO_URING_REGISTER, ringFd, IORING_REGISTER_BUFFERS, iovecs.address(), buffers.length), "io_uring_register");
+    }
+
+    public void prepareRead(MemorySegment buffer, long offset, long userData) {
+        prepare(IORING_OP_READ, buffer, offset, userData, 0);
+    }
+
+    public void prepareReadFixed(MemorySegment buffer, int bufferIndex, long offset, long userData) {
+        prepare(IORING_OP_READ_FIXED, buffer, offset, userData, bufferIndex);
+    }
+
+    /**
+     * Submits every prepared read with a single {@code io_uring_enter} and blocks until at least
+     * {@code minComplete} completions are available.
+     */
+    public int submit(int minComplete) throws IOException {
+        VarHandle.releaseFence();
+        sqRing.set(ValueLayout.JAVA_INT, sqTail, pendingTail);
+        int submitted = (int) check(syscall(SYS_IO_URING_ENTER, ringFd, toSubmit, minComplete,
+                minComplete > 0 ? IORING_ENTER_GETEVENTS : 0), "io_uring_enter");
+        toSubmit -= submitted;
+        return submitted;
+    }
+
+    /**
+     * Copies up to {@code userData.length} available completions into {@code userData}/{@code results} and returns
+     * how many were copied. A negative result is the {@code -errno} of the failed read.
+     */
+    public int reap(long[] userData, int[] results) {
+        int head = cqRing.get(ValueLayout.JAVA_INT, cqHead);
+        int tail = cqRing.get(ValueLayout.JAVA_INT, cqTail);
+        VarHandle.acquireFence();
+        int count = 0;
+        while (head != tail && count < userData.length) {
+            long cqe = cqes + (long) (head & cqMask) * CQE_SIZE;
+            userData[count] = cqRing.get(ValueLayout.JAVA_LONG, cqe);
+            results[count] = cqRing.get(ValueLayout.JAVA_INT, cqe + 8);
+            head++;
+            count++;
+        }
+        VarHandle.releaseFence();
+        cqRing.set(ValueLayout.JAVA_INT, cqHead, head);
+        return count;
+    }
+
+    @Override
+    public void close() {
+        closeFd(fileFd);
+        munmap(sqes, sqesSize);
+        if (cqRing != sqRing) {
+            munmap(cqRing, cqRingSize);
+        }
+        munmap(sqRing, sqRingSize);
+        closeFd(ringFd);
+        arena.close();
+    }
+
+    private void prepare(byte opcode, MemorySegment buffer, long offset, long userData, int bufferIndex) {
+        int head = sqRing.get(ValueLayout.JAVA_INT, sqHead);
+        if (pendingTail - head >= sqEntries) {
+            throw new IllegalStateException("Submission queue is full");
+        }
+        int index = pendingTail & sqMask;
+        MemorySegment sqe = sqes.asSlice((long) index * SQE_SIZE, SQE_SIZE);
+        sqe.fill((byte) 0);
+        sqe.set(ValueLayout.JAVA_BYTE, 0, opcode);
+        sqe.set(ValueLayout.JAVA_INT, 4, fileFd);
+        sqe.set(ValueLayout.JAVA_LONG, 8, offset);
+        sqe.set(ValueLayout.JAVA_LONG, 16, buffer.address());
+        sqe.set(ValueLayout.JAVA_INT, 24, (int) buffer.byteSize());
+        sqe.set(ValueLayout.JAVA_LONG, 32, userData);
+        sqe.set(ValueLayout.JAVA_SHORT, 40, (short) bufferIndex);
+        sqRing.set(ValueLayout.JAVA_INT, sqArray + (long) index * Integer.BYTES, index);
+        pendingTail++;
+        toSubmit++;
+    }
+
+    private int open(Path file, boolean direct) throws IOException {
+        byte[] name = file.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8);
+        MemorySegment path = arena.allocate(name.length + 1);
+        MemorySegment.copy(name, 0, path, ValueLayout.JAVA_BYTE, 0, name.length);
+        path.set(ValueLayout.JAVA_BYTE, name.length, (byte) 0);
+        try {
+            int fd = (int) OPEN.invokeExact(callState, path, O_RDONLY | (direct ? O_DIRECT : 0), 0);
+            return (int) check(fd, "open " + file);
+        } catch (IOException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IOException("open " + file, e);
+        }
+    }
+
+    private MemorySegment mmap(long size, long offset) throws IOException {
+        try {
+            MemorySegment address = (MemorySegment) MMAP.invokeExact(callState, MemorySegment.NULL, size,
+                    PROT_READ | PROT_WRITE, MAP_SHARED | MAP_POPULATE, ringFd, offset);
+            if (address.address() == -1L) {
+                check(-1, "mmap");
+            }
+            return address.reinterpret(size);
+        } catch (IOException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IOException("mmap", e);
+        }
+    }
+
+    private long syscall(long number, long a1, long a2, long a3, long a4) throws IOException {
+        try {
+            return (long) SYSCALL.invokeExact(callState, number, a1, a2, a3, a4, 0L, 0L);
+        } catch (Throwable e) {
+            throw new IOException("syscall " + number, e);
+        }
+    }
+
+    private long check(long result, String call) throws IOException {
+        if (result < 0) {
+            throw new IOException(call + " failed with errno " + callState.get(ValueLayout.JAVA_INT, ERRNO_OFFSET));
+        }
+        return result;
+    }
+
+    private static void munmap(MemorySegment segment, long size) {
+        try {
+            int ignored = (int) MUNMAP.invokeExact(segment, size);
+        } catch (Throwable e) {
+            throw new IllegalStateException("munmap", e);
+        }
+    }
+
+    private static void closeFd(int fd) {
+        try {
+            int ignored = (int) CLOSE.invokeExact(fd);
+        } catch (Throwable e) {
+            throw new IllegalStateException("close", e);
+        }
+    }
+}
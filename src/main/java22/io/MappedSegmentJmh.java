@@ -0,0 +1,165 @@
+package io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import tool.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Tag({ "read", "mmap", "jdk22" })
+public class MappedSegmentJmh {
+
+    private static final long CHUNK_SIZE = 1 << 30;
+    private static final long TOUCH_STRIDE = 2 << 20;
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static ByteBuffer readSequentialFromSegment(MappedState state) {
+        return state.readFromSegment(state.nextSequentialOffset());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static ByteBuffer readRandomFromSegment(MappedState state) {
+        return state.readFromSegment(state.nextRandomOffset());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static ByteBuffer readSequentialFromMappedBuffers(MappedState state) {
+        return state.readFromMappedBuffers(state.nextSequentialOffset());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static ByteBuffer readRandomFromMappedBuffers(MappedState state) {
+        return state.readFromMappedBuffers(state.nextRandomOffset());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int readSequentialFromChannel(MappedState state) throws IOException {
+        return state.channel.read(state.dest.clear(), state.nextSequentialOffset());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static int readRandomFromChannel(MappedState state) throws IOException {
+        return state.channel.read(state.dest.clear(), state.nextRandomOffset());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long mapTouchAndCloseArena(MappedState state) throws IOException {
+        long sum = 0;
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = state.channel.map(FileChannel.MapMode.READ_ONLY, 0, state.fileSize, arena);
+            for (long offset = 0; offset < state.fileSize; offset += TOUCH_STRIDE) {
+                sum += segment.get(ValueLayout.JAVA_BYTE, offset);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.SampleTime)
+    public static long mapAndTouchBuffers(MappedState state) throws IOException {
+        long sum = 0;
+        for (MappedByteBuffer chunk : mapChunks(state.channel, state.fileSize)) {
+            for (int offset = 0; offset < chunk.capacity(); offset += TOUCH_STRIDE) {
+                sum += chunk.get(offset);
+            }
+        }
+        return sum;
+    }
+
+    private static MappedByteBuffer[] mapChunks(FileChannel channel, long fileSize) throws IOException {
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((fileSize + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+        for (int i = 0; i < chunks.length; i++) {
+            long position = i * CHUNK_SIZE;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_SIZE, fileSize - position));
+        }
+        return chunks;
+    }
+
+    @State(Scope.Benchmark)
+    public static class MappedState {
+
+        @Param({ "3221225472" })
+        private long fileSize;
+        @Param({ "4096", "65536" })
+        private int blockSize;
+        private FileChannel channel;
+        private Arena arena;
+        private MemorySegment segment;
+        private MappedByteBuffer[] chunks;
+        private ByteBuffer dest;
+        private MemorySegment destSegment;
+        private File file;
+        private long position;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = Corpus.file(fileSize).toFile();
+            channel = FileChannel.open(file.toPath());
+            arena = Arena.ofShared();
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize, arena);
+            chunks = mapChunks(channel, fileSize);
+            dest = ByteBuffer.allocateDirect(blockSize);
+            destSegment = MemorySegment.ofBuffer(dest);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            arena.close();
+            channel.close();
+        }
+
+        private ByteBuffer readFromSegment(long offset) {
+            MemorySegment.copy(segment, offset, destSegment, 0, blockSize);
+            return dest;
+        }
+
+        private ByteBuffer readFromMappedBuffers(long offset) {
+            MappedByteBuffer chunk = chunks[(int) (offset / CHUNK_SIZE)];
+            dest.put(0, chunk, (int) (offset % CHUNK_SIZE), blockSize);
+            return dest;
+        }
+
+        private long nextSequentialOffset() {
+            long current = position;
+            position = (position + blockSize) % fileSize;
+            return current;
+        }
+
+        private long nextRandomOffset() {
+            return ThreadLocalRandom.current().nextLong(fileSize / blockSize) * blockSize;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import tool.Tag;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code segment} destination of {@link FileChannelJmh#readFileWithRegularChannel} and
+ * {@link FileChannelJmh#readFileWithRandomChannel}: every invocation reads into a fresh {@code MemorySegment} from an
+ * automatic arena, aligned to the file system block size, viewed as a {@link ByteBuffer}.
+ */
+@Tag({ "read", "jdk22" })
+public class SegmentDestinationJmh {
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    public static int readFileWithRegularChannel(SegmentState state) throws IOException {
+        return state.channel.read(state.dest);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+    public static int readFileWithRandomChannel(SegmentState state) throws IOException {
+        return state.channelFromRandomAccess.read(state.dest);
+    }
+
+    @State(Scope.Benchmark)
+    public static class SegmentState {
+
+        @Param({ "4096", "524288" })
+        private int fileSize;
+        private FileChannel channel;
+        private FileChannel channelFromRandomAccess;
+        private ByteBuffer dest;
+        private Path file;
+        private long alignment;
+
+        @Setup(Level.Trial)
+        public void createFile() throws IOException {
+            file = Corpus.file(fileSize);
+            alignment = Files.getFileStore(file).getBlockSize();
+        }
+
+        @Setup(Level.Invocation)
+        public void setUp() throws IOException {
+            channel = FileChannel.open(file);
+            channelFromRandomAccess = new RandomAccessFile(file.toFile(), "r").getChannel();
+            dest = Arena.ofAuto().allocate(fileSize, alignment).asByteBuffer();
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                channelFromRandomAccess.close();
+            }
+        }
+    }
+}